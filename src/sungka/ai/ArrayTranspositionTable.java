@@ -0,0 +1,50 @@
+package sungka.ai;
+
+ // On-heap transposition table in a single long[]. Each bucket holds two
+ // entries: a depth-preferred slot, replaced only by deeper or same-position
+ // results or when it is from an older search, and an always-replace slot.
+ // Every entry is stored as (key ^ data, data) so a probe can verify it.
+public class ArrayTranspositionTable implements TranspositionTable {
+    private final long[] table;
+    private final int bucketMask;
+    private int generation;
+
+    // Create a table with roughly `entries` slots (rounded up to a power of two, min 2).
+    public ArrayTranspositionTable(int entries) {
+        int buckets = Integer.highestOneBit(Math.max(1, (Math.max(2, entries) - 1) >> 1)) << 1;
+        table = new long[buckets * 4];
+        bucketMask = buckets - 1;
+    }
+
+    @Override
+    public long probe(long key) {
+        int b = ((int) (key ^ (key >>> 32)) & bucketMask) << 2;
+        long d0 = table[b + 1];
+        if (d0 != 0 && (table[b] ^ d0) == key) return d0;
+        long d1 = table[b + 3];
+        if (d1 != 0 && (table[b + 2] ^ d1) == key) return d1;
+        return 0L;
+    }
+
+    @Override
+    public void store(long key, int depth, int bound, int move, double score) {
+        int b = ((int) (key ^ (key >>> 32)) & bucketMask) << 2;
+        long data = TranspositionTable.pack(depth, bound, move, score, generation);
+        long d0 = table[b + 1];
+        boolean sameKey = d0 != 0 && (table[b] ^ d0) == key;
+        if (d0 == 0 || sameKey || TranspositionTable.generationOf(d0) != generation
+                || depth >= TranspositionTable.depthOf(d0)) {
+            table[b] = key ^ data;
+            table[b + 1] = data;
+        } else {
+            table[b + 2] = key ^ data;
+            table[b + 3] = data;
+        }
+    }
+
+    @Override
+    public void newSearch() { generation = (generation + 1) & 0xFF; }
+
+    @Override
+    public void clear() { java.util.Arrays.fill(table, 0L); }
+}
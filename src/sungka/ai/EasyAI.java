@@ -1,24 +1,23 @@
 package sungka.ai;
 
+import sungka.core.GameRandom;
 import sungka.core.SungkaGame;
 import sungka.model.Player;
-import sungka.model.Pit;
-
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Random;
 
 public class EasyAI implements AIPlayer {
-    private final Random rnd = new Random();
+    private final GameRandom rnd;
+
+    public EasyAI() { this.rnd = new GameRandom(); }
+
+    // Reproducible choices from a fixed seed.
+    public EasyAI(long seed) { this.rnd = new GameRandom(seed); }
 
     @Override
     public int chooseMove(SungkaGame game, Player ai) {
-        List<Integer> candidates = new ArrayList<>();
-        for (int i = ai.getStart(); i <= ai.getEnd(); i++) {
-            Pit p = game.board[i];
-            if (p.getStones() > 0) candidates.add(i);
-        }
-        if (candidates.isEmpty()) return -1;
-        return candidates.get(rnd.nextInt(candidates.size()));
+        int candidates = game.getSowableMask(ai);
+        if (candidates == 0) return -1;
+        // the r-th set bit
+        for (int r = rnd.nextInt(Integer.bitCount(candidates)); r > 0; r--) candidates &= candidates - 1;
+        return Integer.numberOfTrailingZeros(candidates);
     }
 }
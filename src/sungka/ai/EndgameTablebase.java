@@ -0,0 +1,198 @@
+package sungka.ai;
+
+import sungka.core.SungkaGame;
+import sungka.model.Pit;
+import sungka.model.Player;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+ // Read-only endgame tablebase produced by TablebaseGenerator, memory-mapped
+ // from disk so probes cost one index computation and one byte read.
+ // A position is the 14 small pits, the side to move and the stones each side
+ // still needs to reach the win threshold; power-ups, flags and shields are not
+ // part of it, so probes only apply to games played without power-ups.
+ // Positions with B to move are mirrored onto A (the rules are symmetric under
+ // pit i <-> i+8). With n stones on the small pits a house can gain at most n
+ // more, so each need is capped at n + 1 ("out of reach"), and level n is a
+ // block of C(n+13, 13) * (n+1)^2 signed bytes indexed by index().
+ // A value is the number of stones the side to move will bank beyond its
+ // opponent until the game ends, with best play by both sides for that margin.
+ // The game ends as in SungkaGame: when a house reaches the threshold, or when
+ // the side to move has no stones (no move is left; SearchEngine evaluates such
+ // a position where it stands, and no more stones are banked). Positions the
+ // generator could not resolve are stored as misses.
+public class EndgameTablebase {
+    public static final String DEFAULT_FILE = "sungka_endgame.tb";
+    // returned by probe() when the position is not covered
+    public static final int MISS = Integer.MIN_VALUE;
+    // stored value of an unresolved position (real values are within +-MAX_LEVEL)
+    static final byte UNKNOWN = Byte.MIN_VALUE;
+
+    static final int MAGIC = 0x534B5442; // "SKTB"
+    static final int VERSION = 2;
+    static final int HEADER_BYTES = 12;
+    // largest supported level; C(23, 13) * 11^2 entries = 138 MB
+    static final int MAX_LEVEL = 10;
+    static final int PITS = 14;
+
+    // BINOM[n][k] = n choose k for the ranges ranking needs
+    private static final long[][] BINOM = new long[MAX_LEVEL + PITS + 1][PITS + 1];
+    static {
+        for (int n = 0; n < BINOM.length; n++) {
+            BINOM[n][0] = 1;
+            for (int k = 1; k <= Math.min(n, PITS); k++) BINOM[n][k] = BINOM[n - 1][k - 1] + (k <= n - 1 ? BINOM[n - 1][k] : 0);
+        }
+    }
+
+    private static volatile EndgameTablebase shared;
+    private static volatile boolean sharedLoaded;
+
+    private final MappedByteBuffer data;
+    private final int maxStones;
+    private final long[] levelOffset;
+
+    private EndgameTablebase(MappedByteBuffer data, int maxStones) {
+        this.data = data;
+        this.maxStones = maxStones;
+        this.levelOffset = new long[maxStones + 1];
+        long off = HEADER_BYTES;
+        for (int n = 0; n <= maxStones; n++) { levelOffset[n] = off; off += levelSize(n); }
+    }
+
+    // Map a tablebase file.
+    public static EndgameTablebase open(Path file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            if (buf.capacity() < HEADER_BYTES || buf.getInt(0) != MAGIC || buf.getInt(4) != VERSION) {
+                throw new IOException("not a Sungka tablebase: " + file);
+            }
+            int max = buf.getInt(8);
+            if (max < 0 || max > MAX_LEVEL || buf.capacity() != HEADER_BYTES + totalSize(max)) {
+                throw new IOException("corrupt Sungka tablebase: " + file);
+            }
+            return new EndgameTablebase(buf, max);
+        }
+    }
+
+    // The tablebase in DEFAULT_FILE of the working directory, or null if there is none.
+    public static EndgameTablebase shared() {
+        if (!sharedLoaded) {
+            synchronized (EndgameTablebase.class) {
+                if (!sharedLoaded) {
+                    Path p = Paths.get(DEFAULT_FILE);
+                    try {
+                        if (Files.isRegularFile(p)) shared = open(p);
+                    } catch (IOException ex) {
+                        System.err.println("Ignoring endgame tablebase: " + ex.getMessage());
+                    }
+                    sharedLoaded = true;
+                }
+            }
+        }
+        return shared;
+    }
+
+    // Largest number of small-pit stones covered.
+    public int maxStones() { return maxStones; }
+
+    // Exact margin for the side to move, or MISS when the game uses power-ups,
+    // has pending effects, is already won, holds more stones than the table
+    // covers, or the position was left unresolved by the generator.
+    public int probe(SungkaGame g) {
+        if (g.getAllowedPowerUpMask() != 0) return MISS;
+        if (g.isDoubleCapture() || g.isBonusTurn() || g.isReverseSowing() || g.isSkipOpponent()) return MISS;
+        if (g.getProtectedPit(g.playerA) != null || g.getProtectedPit(g.playerB) != null) return MISS;
+        Player me = g.getCurrent();
+        int needMe = g.getWinThreshold() - g.getHouseStones(me);
+        int needOpp = g.getWinThreshold() - g.getHouseStones(g.getOpponent(me));
+        if (needMe <= 0 || needOpp <= 0) return MISS;
+        // canonical order: the opponent's pits first, then the mover's
+        int oppStart = me == g.playerA ? 0 : 8;
+        int n = 0;
+        for (int k = 0; k < PITS; k++) {
+            Pit p = g.board[canonicalPit(oppStart, k)];
+            if (p.hasPowerUp()) return MISS;
+            n += p.getStones();
+        }
+        if (n > maxStones) return MISS;
+        long r = 0;
+        int s = n;
+        for (int k = 0; k < PITS - 1 && s > 0; k++) {
+            int c = g.board[canonicalPit(oppStart, k)].getStones();
+            if (c > 0) { r += rankStep(s, c, k); s -= c; }
+        }
+        byte v = data.get((int) (levelOffset[n] + index(r, n, needMe, needOpp)));
+        return v == UNKNOWN ? MISS : v;
+    }
+
+    // Board pit holding canonical part k when the opponent's pits start at oppStart.
+    private static int canonicalPit(int oppStart, int k) { return k < 7 ? oppStart + k : (8 - oppStart) + k - 7; }
+
+    // Number of pit layouts with n stones on the small pits.
+    static long rankCount(int n) { return BINOM[n + PITS - 1][PITS - 1]; }
+
+    // Number of entries of level n: every layout with every pair of (capped) needs.
+    static long levelSize(int n) { return rankCount(n) * (n + 1) * (n + 1); }
+
+    // Entry of layout `rank` on level n when the mover needs `needMe` stones and
+    // the opponent `needOpp` (both > 0; needs above n + 1 are capped to it).
+    static long index(long rank, int n, int needMe, int needOpp) {
+        int w = n + 1;
+        return (rank * w + Math.min(needMe, w) - 1) * w + Math.min(needOpp, w) - 1;
+    }
+
+    static long totalSize(int maxStones) {
+        long t = 0;
+        for (int n = 0; n <= maxStones; n++) t += levelSize(n);
+        return t;
+    }
+
+    // Lexicographic rank of a composition of n into 14 parts (pits[0] most significant).
+    static long rank(int[] pits, int n) {
+        long r = 0;
+        int s = n;
+        for (int k = 0; k < PITS - 1 && s > 0; k++) {
+            int c = pits[k];
+            if (c > 0) { r += rankStep(s, c, k); s -= c; }
+        }
+        return r;
+    }
+
+    // Compositions of s ranked before part k = c (parts k+1.. free), by the hockey-stick identity.
+    private static long rankStep(int s, int c, int k) {
+        int m = PITS - 1 - k;
+        return BINOM[s + m][m] - BINOM[s - c + m][m];
+    }
+
+    // Inverse of rank(): fill pits with the composition of n at `index`.
+    static void unrank(long index, int n, int[] pits) {
+        int s = n;
+        for (int k = 0; k < PITS - 1; k++) {
+            int m = PITS - 1 - k;
+            int c = 0;
+            for (;;) {
+                long cnt = BINOM[s - c + m - 1][m - 1];
+                if (index < cnt) break;
+                index -= cnt;
+                c++;
+            }
+            pits[k] = c;
+            s -= c;
+        }
+        pits[PITS - 1] = s;
+    }
+
+    // Header for a file covering levels 0..maxStones.
+    static ByteBuffer header(int maxStones) {
+        ByteBuffer h = ByteBuffer.allocate(HEADER_BYTES);
+        h.putInt(MAGIC).putInt(VERSION).putInt(maxStones).flip();
+        return h;
+    }
+}
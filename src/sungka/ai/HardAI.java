@@ -1,97 +1,248 @@
 package sungka.ai;
 
+import sungka.core.GamePool;
+import sungka.core.GameRandom;
 import sungka.core.SungkaGame;
 import sungka.model.Player;
-import sungka.model.Pit;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class HardAI implements AIPlayer {
-    private final Random rnd = new Random();
+    // default think budget, well inside the GUI's 700 ms AI timer
+    public static final long DEFAULT_TIME_BUDGET_MS = 300;
+    // half-width of the per-move aspiration window (one house shell = 10)
+    private static final double ASPIRATION = 5.0;
+
+    private final GameRandom rnd;
+    // transposition table kept across decisions and shared by all search workers
+    // (entries are self-verifying, so concurrent probes/stores need no locking)
+    private final TranspositionTable table = new ArrayTranspositionTable(1 << 16);
+    // per-thread search state (engine + scratch games), created on demand
+    private final ConcurrentLinkedQueue<Worker> workers = new ConcurrentLinkedQueue<>();
+    private final List<Worker> allWorkers = new ArrayList<>();
+    private final AtomicBoolean stop = new AtomicBoolean();
+    // root moves are searched on this pool when parallelism > 1
+    private ForkJoinPool pool;
+    private int parallelism = 1;
+    private long lastNodes;
+    private int lastDepth;
+    // precomputed opening moves (null = none)
+    private OpeningBook book = OpeningBook.shared();
     private final double[] weights = new double[16];
     private final double baseLearningRate = 0.02;
 
+    // search budget: wall-clock and/or node limit per move, and a depth cap
+    private long timeBudgetMillis = DEFAULT_TIME_BUDGET_MS;
+    private long nodeBudget = 0;
+    private int maxDepth = 32;
+    // refill chance nodes: outcomes sampled per node and plies from the root they apply to
+    private int chanceSamples = SearchEngine.DEFAULT_CHANCE_SAMPLES;
+    private int chancePlies = SearchEngine.DEFAULT_CHANCE_PLIES;
+
+    public HardAI() { this.rnd = new GameRandom(); }
+
+    // Seed the jitter and exploration noise (results still depend on the time budget).
+    public HardAI(long seed) { this.rnd = new GameRandom(seed); }
+
+    // Set the per-move think time in milliseconds (<= 0 disables the time limit).
+    public void setTimeBudgetMillis(long ms) { this.timeBudgetMillis = ms; }
+
+    // Set the per-move node budget (<= 0 disables the node limit).
+    public void setNodeBudget(long nodes) { this.nodeBudget = nodes; }
+
+    // Cap the iterative-deepening depth (plies below the root move, >= 1).
+    public void setMaxDepth(int depth) { this.maxDepth = Math.max(1, Math.min(depth, SearchEngine.MAX_PLY - 2)); }
+
+    // Average over `samples` power-up refill outcomes for moves within `plies` of the root
+    // (1 sample = trust the single simulated draw, as before). Work grows as samples^plies.
+    public void setChance(int samples, int plies) {
+        this.chanceSamples = Math.max(1, samples);
+        this.chancePlies = Math.max(0, plies);
+    }
+
+    // Number of threads searching root moves in parallel (1 = search on the caller's thread).
+    public synchronized void setParallelism(int threads) {
+        int n = Math.max(1, threads);
+        if (n == parallelism) return;
+        if (pool != null) { pool.shutdown(); pool = null; }
+        parallelism = n;
+    }
+
+    public int getParallelism() { return parallelism; }
+
+    // Use the given opening book (null disables book moves).
+    public void setOpeningBook(OpeningBook book) { this.book = book; }
+
     @Override
     public int chooseMove(SungkaGame game, Player ai) {
-        List<Integer> candidates = new ArrayList<>();
-        for (int i = ai.getStart(); i <= ai.getEnd(); i++) {
-            Pit p = game.board[i];
-            if (p.getStones() > 0) candidates.add(i);
+        int sowable = game.getSowableMask(ai);
+        if (sowable == 0) return -1;
+        if (book != null) {
+            int move = book.probe(game);
+            // book moves are sows: a pit holding a power-up would be played as an activation
+            if (move >= 0 && (sowable & (1 << move)) != 0 && !game.board[move].hasPowerUp()) return move;
         }
-        if (candidates.isEmpty()) return -1;
 
-        int maxDepth = 6;
-        double bestScore = Double.NEGATIVE_INFINITY;
-        int best;
-        int nodes = 0;
-        double[] scores = new double[16];
+        int[] candidates = new int[7];
+        int n = SungkaGame.toMoves(sowable, candidates);
+        double[] scores = iterativeDeepening(game, ai, candidates, n);
         double minS = Double.POSITIVE_INFINITY, maxS = Double.NEGATIVE_INFINITY;
-        for (int idx : candidates) {
-            SungkaGame sim = game.copy();
-            if (sim.board[idx].hasPowerUp()) sim.activatePowerUpInPit(idx);
-            else sim.makeMove(idx);
-            double score = -negamax(sim, maxDepth - 1, ai);
-            score += rnd.nextDouble() * 1e-4; // tiny jitter
-            scores[idx] = score;
-            if (score < minS) minS = score;
-            if (score > maxS) maxS = score;
-            if (score > bestScore) { bestScore = score; }
-            nodes++;
-            if (nodes > 5000) break; // safety
+        for (int k = 0; k < n; k++) {
+            int idx = candidates[k];
+            scores[idx] += rnd.nextDouble() * 1e-4; // tiny jitter
+            if (scores[idx] < minS) minS = scores[idx];
+            if (scores[idx] > maxS) maxS = scores[idx];
         }
 
         double houseSum = game.board[game.playerA.getHouseIndex()].getStones() + game.board[game.playerB.getHouseIndex()].getStones();
         double progress = houseSum / (double)(game.getWinThreshold() * 2);
         double lr = Math.min(0.25, baseLearningRate * (1.0 + progress * 2.0));
         if (maxS - minS < 1e-6) maxS = minS + 1.0;
-        for (int idx : candidates) {
+        for (int k = 0; k < n; k++) {
+            int idx = candidates[k];
             double norm = (scores[idx] - minS) / (maxS - minS);
             weights[idx] = weights[idx] * (1.0 - lr) + lr * norm;
         }
 
-        bestScore = Double.NEGATIVE_INFINITY; best = -1;
-        for (int idx : candidates) {
+        double bestScore = Double.NEGATIVE_INFINITY;
+        int best = -1;
+        for (int k = 0; k < n; k++) {
+            int idx = candidates[k];
             double composed = scores[idx] + weights[idx] * (1.0 + progress * 5.0);
             composed += rnd.nextDouble() * 0.01; // exploration
             if (composed > bestScore) { bestScore = composed; best = idx; }
         }
         if (best != -1) return best;
-        return candidates.get(rnd.nextInt(candidates.size()));
+        return candidates[rnd.nextInt(n)];
+    }
+
+    /*
+    Score every root candidate by iterative deepening until the budget runs out
+    and return the scores of the deepest completed iteration. Each candidate is
+    searched with an aspiration window around its previous score (re-searched
+    with a full window on failure) so the learning step still gets exact values.
+    Depth 1 always completes; deeper iterations are abandoned mid-way on timeout.
+    With parallelism > 1 the candidates of each iteration are searched as
+    separate ForkJoin tasks. Scores land in per-pit slots and the caller picks in
+    candidate order, so the outcome does not depend on task completion order.
+    A node budget is split evenly between the threads.
+    */
+    private double[] iterativeDeepening(SungkaGame game, Player ai, int[] candidates, int n) {
+        long start = System.nanoTime();
+        boolean timed = timeBudgetMillis > 0;
+        long deadline = start + timeBudgetMillis * 1_000_000L;
+        boolean parallel = parallelism > 1 && n > 1;
+        long nodesPerWorker = nodeBudget <= 0 ? 0 : Math.max(1, nodeBudget / (parallel ? parallelism : 1));
+
+        double[] scores = new double[16];
+        double[] iter = new double[16];
+        table.newSearch();
+        stop.set(false);
+        synchronized (allWorkers) {
+            for (Worker w : allWorkers) { w.engine.resetNodeCount(); w.engine.clearHeuristics(); }
+        }
+        lastDepth = 0;
+        for (int depth = 1; depth <= maxDepth; depth++) {
+            final int d = depth;
+            boolean completed = true;
+            if (parallel) {
+                List<Callable<Boolean>> tasks = new ArrayList<>(n);
+                for (int k = 0; k < n; k++) {
+                    int idx = candidates[k];
+                    tasks.add(() -> searchRootMove(game, ai, idx, d, scores, iter, timed, deadline, nodesPerWorker));
+                }
+                try {
+                    for (Future<Boolean> f : pool().invokeAll(tasks)) completed &= f.get();
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    completed = false;
+                } catch (ExecutionException ee) {
+                    throw new IllegalStateException(ee.getCause());
+                }
+            } else {
+                for (int k = 0; k < n; k++) {
+                    if (!searchRootMove(game, ai, candidates[k], d, scores, iter, timed, deadline, nodesPerWorker)) { completed = false; break; }
+                }
+            }
+            if (!completed) break;
+            System.arraycopy(iter, 0, scores, 0, 16);
+            lastDepth = depth;
+            // an iteration costs several times the previous one: don't start what can't finish
+            if (timed && System.nanoTime() - start > (deadline - start) / 2) break;
+        }
+        long total = 0;
+        synchronized (allWorkers) {
+            for (Worker w : allWorkers) total += w.engine.getNodeCount();
+        }
+        lastNodes = total;
+        return scores;
     }
 
-    private double negamax(SungkaGame game, int depth, Player rootAI) {
-        Player winner = game.checkForWinner();
-        if (depth <= 0 || winner != null) return evaluate(game, rootAI);
-
-        List<Integer> moves = new ArrayList<>();
-        Player cur = game.getCurrent();
-        for (int i = cur.getStart(); i <= cur.getEnd(); i++) if (game.board[i].getStones() > 0 || game.board[i].hasPowerUp()) moves.add(i);
-        if (moves.isEmpty()) return evaluate(game, rootAI);
-
-        double best = Double.NEGATIVE_INFINITY;
-        for (int m : moves) {
-            SungkaGame sim = game.copy();
-            if (sim.board[m].hasPowerUp()) sim.activatePowerUpInPit(m);
-            else sim.makeMove(m);
-            double val = -negamax(sim, depth - 1, rootAI);
-            if (val > best) best = val;
+    // Search one root move at `depth` on the current thread's worker; false if a limit aborted it.
+    private boolean searchRootMove(SungkaGame game, Player ai, int idx, int depth, double[] prev, double[] out,
+                                   boolean timed, long deadline, long nodesPerWorker) {
+        Worker w = takeWorker();
+        SearchEngine engine = w.engine;
+        engine.setChance(chanceSamples, chancePlies);
+        // depth 1 always completes so there is at least one result
+        if (depth == 1) engine.clearLimits();
+        else engine.setLimits(timed, deadline, nodesPerWorker);
+        // the search plays and undoes moves in place on a scratch copy
+        SungkaGame sim = w.scratch.acquire(game);
+        try {
+            double score;
+            if (depth == 1) {
+                score = engine.searchMove(sim, ai, idx, 0, -SearchEngine.INF, SearchEngine.INF);
+            } else {
+                double lo = prev[idx] - ASPIRATION, hi = prev[idx] + ASPIRATION;
+                score = engine.searchMove(sim, ai, idx, depth - 1, lo, hi);
+                if (score <= lo || score >= hi) score = engine.searchMove(sim, ai, idx, depth - 1, -SearchEngine.INF, SearchEngine.INF);
+            }
+            out[idx] = score;
+            return true;
+        } catch (SearchEngine.Aborted aborted) {
+            while (sim.getUndoDepth() > 0) sim.unmakeMove();
+            stop.set(true);
+            return false;
+        } finally {
+            engine.clearLimits();
+            w.scratch.release(sim);
+            workers.add(w);
         }
-        return best;
     }
 
-    private double evaluate(SungkaGame g, Player ai) {
-        Player opp = g.getOpponent(ai);
-        int myHouse = g.board[ai.getHouseIndex()].getStones();
-        int oppHouse = g.board[opp.getHouseIndex()].getStones();
-        int houseDiff = myHouse - oppHouse;
-        int mySide = 0, oppSide = 0;
-        for (int i = ai.getStart(); i <= ai.getEnd(); i++) mySide += g.board[i].getStones();
-        for (int i = opp.getStart(); i <= opp.getEnd(); i++) oppSide += g.board[i].getStones();
-        int sideDiff = mySide - oppSide;
-        double score = houseDiff * 10.0 + sideDiff * 0.5;
-        if (g.getCurrent() == ai) score += 2.0;
-        return score;
+    private Worker takeWorker() {
+        Worker w = workers.poll();
+        if (w != null) return w;
+        w = new Worker(new SearchEngine(table));
+        w.engine.setStopFlag(stop);
+        w.engine.setTablebase(EndgameTablebase.shared());
+        synchronized (allWorkers) { allWorkers.add(w); }
+        return w;
+    }
+
+    private synchronized ForkJoinPool pool() {
+        if (pool == null) pool = new ForkJoinPool(parallelism);
+        return pool;
     }
+
+    // Search state owned by one thread at a time.
+    private static final class Worker {
+        final SearchEngine engine;
+        final GamePool scratch = new GamePool(2);
+        Worker(SearchEngine engine) { this.engine = engine; }
+    }
+
+    // Nodes searched by the most recent chooseMove call.
+    public long getLastNodeCount() { return lastNodes; }
+
+    // Deepest fully completed iteration of the most recent chooseMove call.
+    public int getLastDepth() { return lastDepth; }
 }
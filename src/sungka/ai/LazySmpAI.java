@@ -0,0 +1,151 @@
+package sungka.ai;
+
+import sungka.core.SungkaGame;
+import sungka.model.Player;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+ // Lazy-SMP engine: the calling thread and N-1 helper threads run independent
+ // iterative-deepening searches of the same position, communicating only
+ // through a shared lock-free off-heap transposition table. Helpers start at
+ // staggered depths so they fill the table with results the main thread can
+ // reuse. The move played is the main thread's best move from its last
+ // completed iteration.
+public class LazySmpAI implements AIPlayer {
+    // half-width of the root aspiration window (one house shell = 10)
+    private static final double ASPIRATION = 5.0;
+
+    private final int threads;
+    private final OffHeapTranspositionTable table;
+    private final SearchEngine[] engines;
+    private final AtomicBoolean stop = new AtomicBoolean();
+    private ExecutorService helpers;
+
+    private long timeBudgetMillis = HardAI.DEFAULT_TIME_BUDGET_MS;
+    private int maxDepth = 32;
+    private long lastNodes;
+    private int lastDepth;
+
+    // Use all available cores and a 64 MB table.
+    public LazySmpAI() { this(Runtime.getRuntime().availableProcessors(), 64); }
+
+    public LazySmpAI(int threads, int tableMegabytes) {
+        this.threads = Math.max(1, threads);
+        this.table = new OffHeapTranspositionTable(tableMegabytes);
+        this.engines = new SearchEngine[this.threads];
+        for (int i = 0; i < this.threads; i++) {
+            engines[i] = new SearchEngine(table);
+            engines[i].setStopFlag(stop);
+            engines[i].setTablebase(EndgameTablebase.shared());
+        }
+    }
+
+    // Set the per-move think time in milliseconds (> 0).
+    public void setTimeBudgetMillis(long ms) { this.timeBudgetMillis = Math.max(1, ms); }
+
+    // Cap the iterative-deepening depth.
+    public void setMaxDepth(int depth) { this.maxDepth = Math.max(1, Math.min(depth, SearchEngine.MAX_PLY - 2)); }
+
+    public int getThreads() { return threads; }
+
+    // Total nodes searched by all threads during the last chooseMove.
+    public long getLastNodeCount() { return lastNodes; }
+
+    // Deepest iteration completed by the main thread during the last chooseMove.
+    public int getLastDepth() { return lastDepth; }
+
+    @Override
+    public int chooseMove(SungkaGame game, Player ai) {
+        if (game.getCurrent() != ai) return -1;
+        int legal = game.getLegalMoveMask(ai);
+        if (legal == 0) return -1;
+        int fallback = Integer.numberOfTrailingZeros(legal);
+
+        long start = System.nanoTime();
+        long deadline = start + timeBudgetMillis * 1_000_000L;
+        table.newSearch();
+        stop.set(false);
+        for (SearchEngine e : engines) { e.resetNodeCount(); e.clearHeuristics(); e.clearLimits(); }
+
+        List<Future<?>> running = new ArrayList<>(threads - 1);
+        for (int t = 1; t < threads; t++) {
+            final int id = t;
+            final SungkaGame sim = game.copy();
+            running.add(helpers().submit(() -> helperLoop(engines[id], sim, id, deadline)));
+        }
+
+        int best = fallback;
+        lastDepth = 0;
+        SearchEngine main = engines[0];
+        SungkaGame sim = game.copy();
+        double prev = 0;
+        for (int depth = 1; depth <= maxDepth; depth++) {
+            // depth 1 always completes so there is a move to play
+            if (depth == 2) main.setLimits(true, deadline, 0);
+            try {
+                double score;
+                if (depth == 1) {
+                    score = main.search(sim, depth, -SearchEngine.INF, SearchEngine.INF);
+                } else {
+                    double lo = prev - ASPIRATION, hi = prev + ASPIRATION;
+                    score = main.search(sim, depth, lo, hi);
+                    if (score <= lo || score >= hi) score = main.search(sim, depth, -SearchEngine.INF, SearchEngine.INF);
+                }
+                if (main.getRootBestMove() >= 0) best = main.getRootBestMove();
+                prev = score;
+                lastDepth = depth;
+            } catch (SearchEngine.Aborted aborted) {
+                while (sim.getUndoDepth() > 0) sim.unmakeMove();
+                break;
+            }
+            if (System.nanoTime() - start > (deadline - start) / 2) break;
+        }
+
+        stop.set(true);
+        for (Future<?> f : running) {
+            try { f.get(); }
+            catch (InterruptedException ie) { Thread.currentThread().interrupt(); }
+            catch (Exception ex) { /* helper failures only cost search effort */ }
+        }
+        main.clearLimits();
+        long total = 0;
+        for (SearchEngine e : engines) total += e.getNodeCount();
+        lastNodes = total;
+        return best;
+    }
+
+    // Helper thread: deepen from a staggered start depth until stopped.
+    private void helperLoop(SearchEngine engine, SungkaGame sim, int id, long deadline) {
+        engine.setLimits(true, deadline, 0);
+        try {
+            for (int depth = 1 + (id & 1); depth <= maxDepth && !stop.get(); depth += 1 + ((id >> 1) & 1)) {
+                engine.search(sim, depth, -SearchEngine.INF, SearchEngine.INF);
+            }
+        } catch (SearchEngine.Aborted aborted) {
+            // stopped by the main thread or the deadline
+        } finally {
+            engine.clearLimits();
+        }
+    }
+
+    private synchronized ExecutorService helpers() {
+        if (helpers == null) {
+            helpers = Executors.newFixedThreadPool(Math.max(1, threads - 1), r -> {
+                Thread t = new Thread(r, "sungka-smp-helper");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        return helpers;
+    }
+
+    // Stop the helper threads (the engine can still be used single-threaded afterwards).
+    public synchronized void shutdown() {
+        if (helpers != null) { helpers.shutdownNow(); helpers = null; }
+    }
+}
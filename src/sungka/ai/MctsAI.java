@@ -0,0 +1,286 @@
+package sungka.ai;
+
+import sungka.core.BoardState;
+import sungka.core.GameRandom;
+import sungka.core.Sowing;
+import sungka.core.SungkaGame;
+import sungka.model.Player;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+ // Monte Carlo Tree Search (UCT) player. Power-up refills make positions
+ // random, so the tree is open-loop: nodes stand for move sequences (a pit to
+ // play, activating its power-up if it has one) and each iteration replays them
+ // on a fresh BoardState, sampling refills anew. Rollouts use a light
+ // heuristic policy (house landings and captures first).
+ // Search is anytime, stopping at the time budget. Each thread grows its own
+ // tree (root parallelism) and root visit counts are summed to pick the move.
+ // Between turns each tree is re-rooted at the subtree reached by the plies
+ // actually played (SungkaGame.getPly), so earlier work is reused.
+public class MctsAI implements AIPlayer {
+    // UCT exploration constant for rewards in [0, 1]
+    private static final double EXPLORATION = 1.2;
+    private static final int ROLLOUT_PLIES = 200;
+    private static final int MAX_SELECTION_DEPTH = 256;
+    private static final int MAX_NODES_PER_TREE = 1 << 20;
+    // seconds a helper thread may idle before it exits
+    private static final long HELPER_IDLE_SECONDS = 30;
+
+    private final Tree[] trees;
+    private ExecutorService helpers;
+    private long timeBudgetMillis = HardAI.DEFAULT_TIME_BUDGET_MS;
+
+    // game and ply count of the previous decision, for tree reuse
+    private SungkaGame lastGame;
+    private int lastPlyCount = -1;
+    private long lastIterations;
+
+    // Use all available cores.
+    public MctsAI() { this(Runtime.getRuntime().availableProcessors()); }
+
+    public MctsAI(int threads) { this(threads, new GameRandom().nextLong()); }
+
+    // Per-tree random streams are forked from `seed`.
+    public MctsAI(int threads, long seed) {
+        GameRandom seeder = new GameRandom(seed);
+        trees = new Tree[Math.max(1, threads)];
+        for (int i = 0; i < trees.length; i++) trees[i] = new Tree(seeder.fork());
+    }
+
+    // Set the per-move think time in milliseconds (> 0).
+    public void setTimeBudgetMillis(long ms) { this.timeBudgetMillis = Math.max(1, ms); }
+
+    // Playouts run by all threads during the last chooseMove.
+    public long getLastIterations() { return lastIterations; }
+
+    @Override
+    public int chooseMove(SungkaGame game, Player ai) {
+        int legal = game.getLegalMoveMask(ai);
+        if (legal == 0) return -1;
+
+        BoardState root = BoardState.of(game);
+        boolean reuse = game == lastGame && game.getPlyCount() >= lastPlyCount;
+        for (Tree t : trees) {
+            if (reuse) t.advance(game, lastPlyCount);
+            else t.reset();
+            t.iterations = 0;
+        }
+
+        long deadline = System.nanoTime() + timeBudgetMillis * 1_000_000L;
+        List<Future<?>> running = new ArrayList<>(trees.length - 1);
+        for (int k = 1; k < trees.length; k++) {
+            Tree t = trees[k];
+            running.add(helpers().submit(() -> t.searchUntil(root, deadline)));
+        }
+        trees[0].searchUntil(root, deadline);
+        for (Future<?> f : running) {
+            try { f.get(); }
+            catch (InterruptedException ie) { Thread.currentThread().interrupt(); }
+            catch (Exception ex) { /* a failed helper only costs playouts */ }
+        }
+
+        // most-visited root move over all trees; ties go to the lower pit
+        long[] visits = new long[16];
+        long iterations = 0;
+        for (Tree t : trees) {
+            iterations += t.iterations;
+            Node[] ch = t.root.children;
+            if (ch == null) continue;
+            for (int i = 0; i < 16; i++) if (ch[i] != null) visits[i] += ch[i].visits;
+        }
+        lastIterations = iterations;
+        int best = Integer.numberOfTrailingZeros(legal);
+        for (int i = 0; i < 16; i++) {
+            if ((legal & (1 << i)) != 0 && visits[i] > visits[best]) best = i;
+        }
+        lastGame = game;
+        lastPlyCount = game.getPlyCount();
+        return best;
+    }
+
+    // Helper pool, created on first use; idle threads exit after HELPER_IDLE_SECONDS,
+    // so an engine that is dropped without shutdown() leaves no threads behind.
+    private synchronized ExecutorService helpers() {
+        if (helpers == null) {
+            int n = Math.max(1, trees.length - 1);
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(n, n, HELPER_IDLE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+                Thread t = new Thread(r, "sungka-mcts");
+                t.setDaemon(true);
+                return t;
+            });
+            pool.allowCoreThreadTimeOut(true);
+            helpers = pool;
+        }
+        return helpers;
+    }
+
+    // Stop the helper threads.
+    public synchronized void shutdown() {
+        if (helpers != null) { helpers.shutdownNow(); helpers = null; }
+    }
+
+    // Mask of pits the side to move can play (stones or a power-up).
+    static int legalMask(BoardState s) {
+        int mask = 0;
+        int start = BoardState.startOf(s.current);
+        for (int i = start; i < start + 7; i++) if (s.stones[i] > 0 || s.powerUps[i] != 0) mask |= 1 << i;
+        return mask;
+    }
+
+    static void play(BoardState s, int pit) {
+        if (s.powerUps[pit] != 0) s.activatePowerUpInPit(pit);
+        else s.makeMove(pit);
+    }
+
+    private static final class Node {
+        int visits;
+        // accumulated reward for side A (side B's reward is visits - winsA)
+        double winsA;
+        Node[] children;
+        int expanded;
+
+        Node child(int pit) {
+            if (children == null) children = new Node[16];
+            Node c = children[pit];
+            if (c == null) { c = children[pit] = new Node(); expanded |= 1 << pit; }
+            return c;
+        }
+    }
+
+    // One search tree with its own random source and scratch state; used by one thread at a time.
+    private static final class Tree {
+        final GameRandom rnd;
+        final BoardState state = new BoardState();
+        final Node[] path = new Node[MAX_SELECTION_DEPTH + 1];
+        Node root = new Node();
+        // nodes in the tree under root (kept exact, checked against MAX_NODES_PER_TREE)
+        int nodes = 1;
+        long iterations;
+
+        Tree(GameRandom rnd) { this.rnd = rnd; }
+
+        void reset() { root = new Node(); nodes = 1; }
+
+        // Re-root at the node reached by the plies played since `fromPly`, or start over.
+        void advance(SungkaGame g, int fromPly) {
+            Node n = root;
+            for (int i = fromPly; i < g.getPlyCount() && n != null; i++) {
+                n = n.children == null ? null : n.children[g.getPly(i) & 15];
+            }
+            if (n == null) { reset(); return; }
+            root = n;
+            // exact count of what is kept, so MAX_NODES_PER_TREE holds across moves
+            nodes = size(n);
+        }
+
+        // Nodes in the subtree under `n`, itself included (recursion depth <= MAX_SELECTION_DEPTH + 1).
+        private static int size(Node n) {
+            int size = 1;
+            for (int bits = n.expanded; bits != 0; bits &= bits - 1) size += size(n.children[Integer.numberOfTrailingZeros(bits)]);
+            return size;
+        }
+
+        void searchUntil(BoardState rootState, long deadline) {
+            do {
+                for (int k = 0; k < 64; k++) iterate(rootState);
+            } while (System.nanoTime() - deadline < 0);
+        }
+
+        void iterate(BoardState rootState) {
+            state.copyFrom(rootState);
+            state.setRandom(rnd);
+            Node node = root;
+            int depth = 0;
+            path[depth++] = node;
+            while (depth <= MAX_SELECTION_DEPTH && state.winner() < 0) {
+                int legal = legalMask(state);
+                if (legal == 0) break;
+                int untried = legal & ~node.expanded;
+                if (untried != 0 && nodes < MAX_NODES_PER_TREE) {
+                    // expansion: add one untried move and go to the rollout
+                    int pit = randomBit(untried);
+                    play(state, pit);
+                    path[depth++] = node.child(pit);
+                    nodes++;
+                    break;
+                }
+                int pit = select(node, legal & node.expanded, state.current);
+                if (pit < 0) break;
+                play(state, pit);
+                node = node.children[pit];
+                path[depth++] = node;
+            }
+            double rewardA = rollout();
+            for (int k = 0; k < depth; k++) {
+                path[k].visits++;
+                path[k].winsA += rewardA;
+            }
+            iterations++;
+        }
+
+        // UCT choice among expanded legal children from `side`'s point of view.
+        private int select(Node node, int mask, int side) {
+            if (mask == 0) return -1;
+            double logN = Math.log(Math.max(1, node.visits));
+            double best = Double.NEGATIVE_INFINITY;
+            int bestPit = -1;
+            for (int bits = mask; bits != 0; bits &= bits - 1) {
+                int pit = Integer.numberOfTrailingZeros(bits);
+                Node c = node.children[pit];
+                double q = c.winsA / c.visits;
+                if (side == BoardState.SIDE_B) q = 1.0 - q;
+                double u = q + EXPLORATION * Math.sqrt(logN / c.visits);
+                if (u > best) { best = u; bestPit = pit; }
+            }
+            return bestPit;
+        }
+
+        // Play out from `state`; returns side A's reward (1 win, 0 loss, 0.5 draw).
+        private double rollout() {
+            for (int ply = 0; ply < ROLLOUT_PLIES; ply++) {
+                int w = state.winner();
+                if (w >= 0) return w == BoardState.SIDE_A ? 1.0 : 0.0;
+                int legal = legalMask(state);
+                if (legal == 0) break;
+                int pit = -1;
+                if (rnd.nextBoolean()) pit = tacticalMove(legal);
+                if (pit < 0) pit = randomBit(legal);
+                play(state, pit);
+            }
+            int w = state.winner();
+            if (w >= 0) return w == BoardState.SIDE_A ? 1.0 : 0.0;
+            // undecided: compare houses plus the stones each side still holds
+            int a = state.stones[15], b = state.stones[7];
+            for (int i = 0; i < 7; i++) { b += state.stones[i]; a += state.stones[8 + i]; }
+            return a > b ? 1.0 : a < b ? 0.0 : 0.5;
+        }
+
+        // A sow that lands in the mover's house or captures, or -1.
+        private int tacticalMove(int legal) {
+            int me = state.current;
+            boolean reverse = (state.flags & BoardState.FLAG_REVERSE_SOWING) != 0;
+            int capture = -1;
+            for (int bits = legal; bits != 0; bits &= bits - 1) {
+                int pit = Integer.numberOfTrailingZeros(bits);
+                int n = state.stones[pit];
+                if (state.powerUps[pit] != 0 || n == 0) continue;
+                int pos = Sowing.landing(me, reverse, pit, n);
+                if (pos == BoardState.houseOf(me)) return pit;
+                if (capture < 0 && n < 15 && BoardState.owns(me, pos) && state.stones[pos] == 0 && state.stones[14 - pos] > 0) capture = pit;
+            }
+            return capture;
+        }
+
+        private int randomBit(int mask) {
+            int r = rnd.nextInt(Integer.bitCount(mask));
+            while (r-- > 0) mask &= mask - 1;
+            return Integer.numberOfTrailingZeros(mask);
+        }
+    }
+}
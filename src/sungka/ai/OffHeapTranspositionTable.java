@@ -0,0 +1,68 @@
+package sungka.ai;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+ // Lock-free transposition table in direct (off-heap) memory, shared by many
+ // search threads. Same bucket layout and replacement policy as
+ // ArrayTranspositionTable, but every 64-bit word is read and written
+ // atomically through a VarHandle. Each entry is stored as (key ^ data, data),
+ // so a probe that races with a store fails verification and is a plain miss.
+ // Large tables live outside the Java heap and are never scanned by the GC.
+public class OffHeapTranspositionTable implements TranspositionTable {
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+    // direct buffers are int-indexed; keep offsets well inside that range
+    private static final long MAX_BYTES = 1L << 30;
+    private static final int BUCKET_BYTES = 32;
+
+    private final ByteBuffer mem;
+    private final int bucketMask;
+    private volatile int generation;
+
+    // Create a table of about `megabytes` MB (rounded down to a power of two, max 1 GB).
+    public OffHeapTranspositionTable(int megabytes) {
+        long bytes = Math.min(MAX_BYTES, Math.max(BUCKET_BYTES, (long) megabytes << 20));
+        int buckets = (int) Long.highestOneBit(bytes / BUCKET_BYTES);
+        mem = ByteBuffer.allocateDirect(buckets * BUCKET_BYTES).order(ByteOrder.nativeOrder());
+        bucketMask = buckets - 1;
+    }
+
+    // Number of entry slots (two per bucket).
+    public long capacity() { return (bucketMask + 1L) * 2; }
+
+    @Override
+    public long probe(long key) {
+        int b = bucketOffset(key);
+        long d0 = (long) LONGS.getOpaque(mem, b + 8);
+        if (d0 != 0 && ((long) LONGS.getOpaque(mem, b) ^ d0) == key) return d0;
+        long d1 = (long) LONGS.getOpaque(mem, b + 24);
+        if (d1 != 0 && ((long) LONGS.getOpaque(mem, b + 16) ^ d1) == key) return d1;
+        return 0L;
+    }
+
+    @Override
+    public void store(long key, int depth, int bound, int move, double score) {
+        int b = bucketOffset(key);
+        int gen = generation;
+        long data = TranspositionTable.pack(depth, bound, move, score, gen);
+        long d0 = (long) LONGS.getOpaque(mem, b + 8);
+        boolean sameKey = d0 != 0 && ((long) LONGS.getOpaque(mem, b) ^ d0) == key;
+        int slot = (d0 == 0 || sameKey || TranspositionTable.generationOf(d0) != gen
+                || depth >= TranspositionTable.depthOf(d0)) ? b : b + 16;
+        LONGS.setOpaque(mem, slot, key ^ data);
+        LONGS.setOpaque(mem, slot + 8, data);
+    }
+
+    @Override
+    public void newSearch() { generation = (generation + 1) & 0xFF; }
+
+    @Override
+    public void clear() {
+        int n = mem.capacity();
+        for (int off = 0; off < n; off += 8) LONGS.setOpaque(mem, off, 0L);
+    }
+
+    private int bucketOffset(long key) { return ((int) (key ^ (key >>> 32)) & bucketMask) * BUCKET_BYTES; }
+}
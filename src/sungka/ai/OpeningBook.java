@@ -0,0 +1,109 @@
+package sungka.ai;
+
+import sungka.core.SungkaGame;
+import sungka.core.Zobrist;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+ // Precomputed best moves for the first plies of a game, built offline by
+ // OpeningBookBuilder. Power-ups are placed at random, so positions are keyed by
+ // stone layout and side to move only, combined with the game configuration
+ // (enabled power-ups and win threshold) the book was built for. A book move
+ // is a plain sow, scored with no power-up in the sown pit; callers play it
+ // only when that pit holds none (otherwise it would be an activation).
+ // The file holds sorted keys followed by one move byte per key; probing is a
+ // binary search over an in-memory long[].
+public class OpeningBook {
+    public static final String DEFAULT_FILE = "sungka_opening.book";
+
+    static final int MAGIC = 0x534B4F42; // "SKOB"
+    static final int VERSION = 2;
+    private static final long SIDE_B = Zobrist.state(1, false, false, false, false, -1, 0, 0, -1, 0, 0);
+
+    private static volatile OpeningBook shared;
+    private static volatile boolean sharedLoaded;
+
+    private final long[] keys;
+    private final byte[] moves;
+
+    OpeningBook(long[] keys, byte[] moves) {
+        this.keys = keys;
+        this.moves = moves;
+    }
+
+    // Load a book file.
+    public static OpeningBook open(Path file) throws IOException {
+        ByteBuffer buf = ByteBuffer.wrap(Files.readAllBytes(file));
+        if (buf.remaining() < 12 || buf.getInt() != MAGIC || buf.getInt() != VERSION) {
+            throw new IOException("not a Sungka opening book: " + file);
+        }
+        int count = buf.getInt();
+        if (count < 0 || buf.remaining() != count * 9L) throw new IOException("corrupt Sungka opening book: " + file);
+        long[] keys = new long[count];
+        byte[] moves = new byte[count];
+        buf.asLongBuffer().get(keys);
+        buf.position(buf.position() + count * 8).get(moves);
+        return new OpeningBook(keys, moves);
+    }
+
+    // The book in DEFAULT_FILE of the working directory, or null if there is none.
+    public static OpeningBook shared() {
+        if (!sharedLoaded) {
+            synchronized (OpeningBook.class) {
+                if (!sharedLoaded) {
+                    Path p = Paths.get(DEFAULT_FILE);
+                    try {
+                        if (Files.isRegularFile(p)) shared = open(p);
+                    } catch (IOException ex) {
+                        System.err.println("Ignoring opening book: " + ex.getMessage());
+                    }
+                    sharedLoaded = true;
+                }
+            }
+        }
+        return shared;
+    }
+
+    public int size() { return keys.length; }
+
+    // Book move for the side to move, or -1 if the position is not in the book.
+    // Positions with pending power-up effects are never book positions.
+    public int probe(SungkaGame g) {
+        if (g.isDoubleCapture() || g.isBonusTurn() || g.isReverseSowing() || g.isSkipOpponent()) return -1;
+        if (g.getProtectedPit(g.playerA) != null || g.getProtectedPit(g.playerB) != null) return -1;
+        long k = configKey(g.getAllowedPowerUpMask(), g.getWinThreshold());
+        for (int i = 0; i < 16; i++) k ^= Zobrist.stones(i, g.board[i].getStones());
+        if (g.getCurrent() == g.playerB) k ^= SIDE_B;
+        int at = Arrays.binarySearch(keys, k);
+        return at < 0 ? -1 : moves[at];
+    }
+
+    // Book key of a stone layout, side to move (0 = A, 1 = B) and configuration.
+    static long key(int[] stones, int side, int allowedMask, int winThreshold) {
+        long k = configKey(allowedMask, winThreshold);
+        for (int i = 0; i < 16; i++) k ^= Zobrist.stones(i, stones[i]);
+        return side == 0 ? k : k ^ SIDE_B;
+    }
+
+    // SplitMix64 finalizer over the configuration, so books for several configurations can share a file.
+    private static long configKey(int allowedMask, int winThreshold) {
+        long z = ((long) allowedMask << 32 | winThreshold) + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    // Serialise sorted keys and their moves in the file format read by open().
+    static ByteBuffer encode(long[] keys, byte[] moves) {
+        ByteBuffer b = ByteBuffer.allocate(12 + keys.length * 9);
+        b.putInt(MAGIC).putInt(VERSION).putInt(keys.length);
+        for (long k : keys) b.putLong(k);
+        b.put(moves).flip();
+        return b;
+    }
+}
@@ -0,0 +1,143 @@
+package sungka.ai;
+
+import sungka.core.BoardState;
+import sungka.core.SungkaGame;
+import sungka.powerups.PowerUpManager;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+ // Offline builder for OpeningBook files.
+ // Enumerates every stone layout reachable by sowing from the standard start
+ // within the first `plies` moves, and for each configuration picks the sow
+ // with the best average score over `samples` random power-up layouts, each
+ // searched to a fixed depth (far deeper than HardAI reaches in its time budget).
+ // A pit is scored as a sow with its own power-up (if the layout put one there)
+ // removed, since HardAI only plays a book move from a pit without a power-up.
+ // Positions are searched in parallel, one engine per worker thread.
+ // Usage: OpeningBookBuilder [plies] [depth] [samples] [output] [config...]
+ // where a config is CODES@THRESHOLD, CODES being "all", "none" or power-up
+ // letters such as "DBR" (default: all@50 none@50).
+public class OpeningBookBuilder {
+    public static void main(String[] args) throws IOException {
+        int plies = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+        int depth = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int samples = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+        Path out = Paths.get(args.length > 3 ? args[3] : OpeningBook.DEFAULT_FILE);
+        List<String> configs = args.length > 4 ? Arrays.asList(args).subList(4, args.length) : List.of("all@50", "none@50");
+
+        long t0 = System.nanoTime();
+        List<BoardState> positions = enumerate(plies);
+        System.out.printf("%,d book positions within %d plies%n", positions.size(), plies);
+        Map<Long, Byte> book = new ConcurrentHashMap<>();
+        for (String cfg : configs) {
+            int at = cfg.indexOf('@');
+            String codes = at < 0 ? cfg : cfg.substring(0, at);
+            int threshold = at < 0 ? SungkaGame.WIN_THRESHOLD : Integer.parseInt(cfg.substring(at + 1));
+            Collection<String> allowed = parseCodes(codes);
+            int mask = newGame(allowed, threshold).getAllowedPowerUpMask();
+            long t = System.nanoTime();
+            ThreadLocal<SearchEngine> engines = ThreadLocal.withInitial(() -> new SearchEngine(new ArrayTranspositionTable(1 << 18)));
+            positions.parallelStream().forEach(pos -> {
+                int move = bestMove(engines.get(), pos, allowed, threshold, depth, samples);
+                if (move >= 0) book.put(OpeningBook.key(pos.stones, pos.current, mask, threshold), (byte) move);
+            });
+            System.out.printf("config %s: done in %.1f s%n", cfg, (System.nanoTime() - t) / 1e9);
+        }
+
+        long[] keys = new long[book.size()];
+        int n = 0;
+        for (long k : book.keySet()) keys[n++] = k;
+        Arrays.sort(keys);
+        byte[] moves = new byte[keys.length];
+        for (int i = 0; i < keys.length; i++) moves[i] = book.get(keys[i]);
+        try (FileChannel ch = FileChannel.open(out, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer b = OpeningBook.encode(keys, moves);
+            while (b.hasRemaining()) ch.write(b);
+        }
+        System.out.printf("wrote %s (%,d entries) in %.1f s%n", out, keys.length, (System.nanoTime() - t0) / 1e9);
+    }
+
+    // Distinct (layout, side to move) positions reachable by sowing within `plies` moves.
+    static List<BoardState> enumerate(int plies) {
+        Map<Long, BoardState> seen = new LinkedHashMap<>();
+        BoardState start = new BoardState();
+        for (int i = 0; i < 16; i++) start.stones[i] = (i == 7 || i == 15) ? 0 : 7;
+        expand(start, plies, seen);
+        return new ArrayList<>(seen.values());
+    }
+
+    private static void expand(BoardState s, int plies, Map<Long, BoardState> seen) {
+        if (s.winner() >= 0) return;
+        long key = OpeningBook.key(s.stones, s.current, 0, 0);
+        if (seen.putIfAbsent(key, s) != null || plies == 0) return;
+        int from = BoardState.startOf(s.current);
+        for (int pit = from; pit < from + 7; pit++) {
+            if (s.stones[pit] == 0) continue;
+            BoardState child = s.copy();
+            child.makeMove(pit);
+            expand(child, plies - 1, seen);
+        }
+    }
+
+    // Pit whose sow has the best average score over sampled power-up layouts, or -1 if none can be sown.
+    private static int bestMove(SearchEngine engine, BoardState pos, Collection<String> allowed, int threshold, int depth, int samples) {
+        double[] sum = new double[16];
+        int from = BoardState.startOf(pos.current);
+        int count = allowed.isEmpty() ? 1 : samples;
+        for (int s = 0; s < count; s++) {
+            SungkaGame g = newGame(allowed, threshold);
+            BoardState layout = pos.copy();
+            layout.winThreshold = threshold;
+            layout.applyTo(g);
+            if (!allowed.isEmpty()) {
+                g.refreshPowerUpsForPlayer(g.playerA, 3);
+                g.refreshPowerUpsForPlayer(g.playerB, 3);
+            }
+            engine.getTable().newSearch();
+            engine.clearHeuristics();
+            for (int pit = from; pit < from + 7; pit++) {
+                if (pos.stones[pit] == 0) continue;
+                // searchMove sows a pit without a power-up (makeMoveUndoable) instead of activating it
+                byte id = g.board[pit].getPowerUpId();
+                g.board[pit].clearPowerUp();
+                // iterative deepening only to fill the table for move ordering
+                double v = 0;
+                for (int d = 0; d < depth; d++) v = engine.searchMove(g, g.getCurrent(), pit, d, -SearchEngine.INF, SearchEngine.INF);
+                g.board[pit].setPowerUpId(id);
+                sum[pit] += v;
+            }
+        }
+        int best = -1;
+        for (int pit = from; pit < from + 7; pit++) {
+            if (pos.stones[pit] > 0 && (best < 0 || sum[pit] > sum[best])) best = pit;
+        }
+        return best;
+    }
+
+    private static SungkaGame newGame(Collection<String> allowed, int threshold) {
+        SungkaGame g = new SungkaGame();
+        g.setAllowedPowerUps(allowed);
+        g.setWinThreshold(threshold);
+        return g;
+    }
+
+    private static Collection<String> parseCodes(String codes) {
+        if (codes.equalsIgnoreCase("none")) return List.of();
+        if (codes.equalsIgnoreCase("all")) codes = PowerUpManager.ID_LETTERS;
+        List<String> out = new ArrayList<>();
+        for (char c : codes.toUpperCase().toCharArray()) out.add(String.valueOf(c));
+        return out;
+    }
+}
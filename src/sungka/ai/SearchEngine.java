@@ -0,0 +1,303 @@
+package sungka.ai;
+
+import sungka.core.GameRandom;
+import sungka.core.Sowing;
+import sungka.core.SungkaGame;
+import sungka.model.Pit;
+import sungka.model.Player;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+ // Alpha-beta (principal variation) search over a SungkaGame using in-place
+ // make/unmake. Scores are from the perspective of the player to move; a move
+ // that keeps the turn (house landing, bonus/skip power-ups) is not negated.
+ // Move ordering: transposition-table move, house landings, captures (largest
+ // first), two killer moves per ply, then the history heuristic.
+ // With an EndgameTablebase attached, covered positions below the root return
+ // their solved value (the final house difference under the game's end rules)
+ // instead of being searched; positions the table could not solve are searched.
+ // Power-up refills after a turn are random. Moves played near the root are
+ // chance nodes: the move is replayed under a fixed number of refill draws
+ // (seeded from the position, so repeated searches agree) and the values are
+ // averaged, with Star1 pruning. Deeper moves keep the single draw of the game's
+ // own stream, so the cost of chance nodes is capped at samples^plies.
+ // Searches can be bounded by a wall-clock deadline and/or a node budget; when
+ // one is exceeded the search throws Aborted and leaves its moves on the game's
+ // undo stack for the caller to unwind (the game's random state is left changed too).
+ // Not thread-safe: use one engine per search thread.
+public final class SearchEngine {
+    public static final double INF = 1e9;
+    static final int MAX_PLY = 64;
+    // null-window width; evaluation scores are multiples of 0.5
+    private static final double EPS = 1e-3;
+    // default chance-node shape (see setChance)
+    public static final int DEFAULT_CHANCE_SAMPLES = 3;
+    public static final int DEFAULT_CHANCE_PLIES = 2;
+    // assumed bound on |score| for Star1 pruning; sampled values are clamped to it
+    private static final double VALUE_BOUND = 2000.0;
+
+    private static final int SCORE_TT = 1 << 30;
+    private static final int SCORE_HOUSE = 1 << 24;
+    private static final int SCORE_CAPTURE = 1 << 22;
+    private static final int SCORE_KILLER = 1 << 20;
+
+    private final TranspositionTable tt;
+    private long nodes;
+    // search limits (see setLimits); nodes are counted since resetNodeCount()
+    private boolean timeLimited = false;
+    private long deadlineNanos;
+    private long nodeLimit = Long.MAX_VALUE;
+    // optional flag shared with other search threads; checked with the deadline
+    private AtomicBoolean stopFlag;
+    // killer moves per ply (-1 = none) and history counters per pit
+    private final int[][] killers = new int[MAX_PLY][2];
+    private final int[] history = new int[16];
+    // per-ply move and ordering-score buffers, reused to avoid allocation
+    private final int[][] moveBuf = new int[MAX_PLY][7];
+    private final int[][] orderBuf = new int[MAX_PLY][7];
+    private int rootBestMove = -1;
+    // optional exact values for small power-up-free endgames
+    private EndgameTablebase tablebase;
+    // refill outcomes sampled per chance node, and the plies from the root that are chance nodes
+    private int chanceSamples = DEFAULT_CHANCE_SAMPLES;
+    private int chancePlies = DEFAULT_CHANCE_PLIES;
+
+    public SearchEngine(TranspositionTable tt) {
+        this.tt = tt;
+        clearHeuristics();
+    }
+
+    // Number of nodes visited since the last resetNodeCount().
+    public long getNodeCount() { return nodes; }
+
+    public void resetNodeCount() { nodes = 0; }
+
+    public TranspositionTable getTable() { return tt; }
+
+    // Attach an endgame tablebase (null to detach).
+    public void setTablebase(EndgameTablebase tb) { this.tablebase = tb; }
+
+    // Sample `samples` refill outcomes for moves made within `plies` plies of the
+    // root (samples <= 1 or plies <= 0 searches the game's own single draw everywhere).
+    public void setChance(int samples, int plies) {
+        this.chanceSamples = Math.max(1, samples);
+        this.chancePlies = Math.max(0, plies);
+    }
+
+    // Abort searches once System.nanoTime() passes `deadline` (if timeLimited)
+    // or the node count reaches `maxNodes` (<= 0 means unlimited).
+    public void setLimits(boolean timeLimited, long deadline, long maxNodes) {
+        this.timeLimited = timeLimited;
+        this.deadlineNanos = deadline;
+        this.nodeLimit = maxNodes > 0 ? maxNodes : Long.MAX_VALUE;
+    }
+
+    public void clearLimits() { setLimits(false, 0L, 0L); }
+
+    // Share a stop flag between engines: once set, searches abort at the next check.
+    public void setStopFlag(AtomicBoolean flag) { this.stopFlag = flag; }
+
+    // Thrown when a search limit is hit. Preallocated and stackless, so aborting is cheap.
+    public static final class Aborted extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+        private Aborted() { super("search limit reached", null, false, false); }
+    }
+
+    private static final Aborted ABORTED = new Aborted();
+
+    // Forget killer moves and age history scores (call between decisions).
+    public void clearHeuristics() {
+        for (int[] k : killers) { k[0] = -1; k[1] = -1; }
+        for (int i = 0; i < 16; i++) history[i] >>= 2;
+    }
+
+    // Play `pit` for `ai` (activation if it holds a power-up, otherwise a sow),
+    // search the resulting position and return its score from ai's perspective.
+    public double searchMove(SungkaGame g, Player ai, int pit, int depth, double alpha, double beta) {
+        return chance(g, ai, pit, depth, 0, alpha, beta);
+    }
+
+    // Search the current position to `depth` plies within (alpha, beta).
+    // The best move found is available from getRootBestMove() afterwards.
+    public double search(SungkaGame g, int depth, double alpha, double beta) {
+        rootBestMove = -1;
+        return pvs(g, depth, 0, alpha, beta);
+    }
+
+    // Best root move of the last search() call (-1 if the position had no moves).
+    public int getRootBestMove() { return rootBestMove; }
+
+    private double pvs(SungkaGame g, int depth, int ply, double alpha, double beta) {
+        if (++nodes >= nodeLimit) throw ABORTED;
+        if ((nodes & 1023) == 0 && (stopFlag != null && stopFlag.get() || timeLimited && System.nanoTime() - deadlineNanos > 0)) throw ABORTED;
+        Player cur = g.getCurrent();
+        boolean over = g.checkForWinner() != null;
+        if (!over && ply > 0 && tablebase != null) {
+            // MISS also covers positions the generator left unresolved
+            int margin = tablebase.probe(g);
+            if (margin != EndgameTablebase.MISS) return tablebaseScore(g, cur, margin);
+        }
+        if (depth <= 0 || ply >= MAX_PLY - 1 || over) return evaluate(g, cur);
+
+        long key = g.zobristKey();
+        long entry = tt.probe(key);
+        int ttMove = -1;
+        if (entry != 0) {
+            ttMove = TranspositionTable.moveOf(entry);
+            // no cutoffs at the root so that a best move is always produced
+            if (ply > 0 && TranspositionTable.depthOf(entry) >= depth) {
+                double s = TranspositionTable.scoreOf(entry);
+                int bound = TranspositionTable.boundOf(entry);
+                if (bound == TranspositionTable.EXACT) return s;
+                if (bound == TranspositionTable.LOWER && s > alpha) alpha = s;
+                else if (bound == TranspositionTable.UPPER && s < beta) beta = s;
+                if (alpha >= beta) return s;
+            }
+        }
+
+        int n = generateOrdered(g, cur, ply, ttMove);
+        if (n == 0) return evaluate(g, cur);
+
+        int[] moves = moveBuf[ply];
+        double alphaOrig = alpha;
+        double best = -INF;
+        int bestMove = -1;
+        for (int k = 0; k < n; k++) {
+            int m = moves[k];
+            boolean quiet = orderBuf[ply][k] < SCORE_KILLER;
+            double val;
+            if (k == 0) {
+                val = chance(g, cur, m, depth - 1, ply, alpha, beta);
+            } else {
+                val = chance(g, cur, m, depth - 1, ply, alpha, alpha + EPS);
+                if (val > alpha && val < beta) val = chance(g, cur, m, depth - 1, ply, alpha, beta);
+            }
+            if (val > best) { best = val; bestMove = m; }
+            if (val > alpha) alpha = val;
+            if (alpha >= beta) {
+                if (quiet) {
+                    int[] kl = killers[ply];
+                    if (kl[0] != m) { kl[1] = kl[0]; kl[0] = m; }
+                    history[m] += depth * depth;
+                }
+                break;
+            }
+        }
+
+        if (ply == 0) rootBestMove = bestMove;
+        int bound = best <= alphaOrig ? TranspositionTable.UPPER : best >= beta ? TranspositionTable.LOWER : TranspositionTable.EXACT;
+        tt.store(key, depth, bound, bestMove, best);
+        return best;
+    }
+
+    // Play `pit` for `mover` at `ply`, search the result to `depth` and undo it; returns mover's score.
+    // Within chancePlies of the root the move is played once per refill sample and
+    // the average is returned (fail-soft, like pvs). Star1: with the samples still to
+    // come bounded by +-VALUE_BOUND, each sample gets the narrowest window that can
+    // still move the average across (alpha, beta), and sampling stops once it cannot.
+    // A move that draws nothing from the random stream has a single outcome and is searched
+    // once, with the caller's window; without enabled power-ups no move draws at all.
+    private double chance(SungkaGame g, Player mover, int pit, int depth, int ply, double alpha, double beta) {
+        int n = ply < chancePlies && g.getAllowedPowerUpMask() != 0 ? chanceSamples : 1;
+        if (n == 1) {
+            play(g, pit);
+            double v = child(g, mover, depth, ply + 1, alpha, beta);
+            g.unmakeMove();
+            return v;
+        }
+        long saved = g.getRandomState();
+        long base = g.zobristKey() ^ pit;
+        double sum = 0.0, result = 0.0;
+        for (int i = 0; i < n; i++) {
+            int left = n - 1 - i;
+            double lo = n * alpha - sum - left * VALUE_BOUND;
+            double hi = n * beta - sum + left * VALUE_BOUND;
+            long seed = GameRandom.mix(base + i);
+            g.setRandomState(seed);
+            play(g, pit);
+            if (g.getRandomState() == seed) {
+                // nothing drawn: every sample would be this one
+                result = child(g, mover, depth, ply + 1, alpha, beta);
+                g.unmakeMove();
+                break;
+            }
+            double v = child(g, mover, depth, ply + 1, Math.max(lo, -VALUE_BOUND), Math.min(hi, VALUE_BOUND));
+            g.unmakeMove();
+            v = Math.max(-VALUE_BOUND, Math.min(VALUE_BOUND, v));
+            sum += v;
+            // the average is already below alpha / above beta whatever the remaining samples return
+            if (v <= lo) { result = (sum + left * VALUE_BOUND) / n; break; }
+            if (v >= hi) { result = (sum - left * VALUE_BOUND) / n; break; }
+            result = sum / n;
+        }
+        g.setRandomState(saved);
+        return result;
+    }
+
+    // Search the position after a move, converting the score to `mover`'s view.
+    private double child(SungkaGame g, Player mover, int depth, int ply, double alpha, double beta) {
+        if (g.getCurrent() == mover) return pvs(g, depth, ply, alpha, beta);
+        return -pvs(g, depth, ply, -beta, -alpha);
+    }
+
+    private static void play(SungkaGame g, int pit) {
+        if (g.board[pit].hasPowerUp()) g.activatePowerUpUndoable(pit);
+        else g.makeMoveUndoable(pit);
+    }
+
+    // Fill moveBuf[ply] with the mover's playable pits sorted by ordering score; return the count.
+    private int generateOrdered(SungkaGame g, Player cur, int ply, int ttMove) {
+        int[] moves = moveBuf[ply];
+        int[] order = orderBuf[ply];
+        int[] kl = killers[ply];
+        int n = 0;
+        for (int bits = g.getLegalMoveMask(cur); bits != 0; bits &= bits - 1) {
+            int i = Integer.numberOfTrailingZeros(bits);
+            Pit p = g.board[i];
+            int s;
+            if (i == ttMove) s = SCORE_TT;
+            else if (!p.hasPowerUp()) s = sowOrderScore(g, cur, i, p.getStones());
+            else s = 0;
+            if (s < SCORE_KILLER) {
+                if (i == kl[0]) s = SCORE_KILLER + 1;
+                else if (i == kl[1]) s = SCORE_KILLER;
+                else s = Math.min(history[i], SCORE_KILLER - 1);
+            }
+            // insertion sort, highest score first
+            int k = n++;
+            while (k > 0 && order[k - 1] < s) { moves[k] = moves[k - 1]; order[k] = order[k - 1]; k--; }
+            moves[k] = i;
+            order[k] = s;
+        }
+        return n;
+    }
+
+    // Ordering score for sowing `stones` from `pit`: house landings, then captures by size, else 0.
+    private static int sowOrderScore(SungkaGame g, Player cur, int pit, int stones) {
+        int pos = Sowing.landing(cur == g.playerA ? 0 : 1, g.isReverseSowing(), pit, stones);
+        if (pos == cur.getHouseIndex()) return SCORE_HOUSE;
+        if (stones < 15 && cur.ownsPit(pos) && g.board[pos].getStones() == 0) {
+            return SCORE_CAPTURE + g.board[14 - pos].getStones();
+        }
+        return 0;
+    }
+
+    // Score for p (to move) given the tablebase margin: the house difference when the game ends
+    // (a house reaches the threshold or the mover has no stones), on the evaluation scale.
+    private static double tablebaseScore(SungkaGame g, Player p, int margin) {
+        int houseDiff = g.board[p.getHouseIndex()].getStones() - g.board[g.getOpponent(p).getHouseIndex()].getStones();
+        return (houseDiff + margin) * 10.0;
+    }
+
+    // Static evaluation from p's perspective: house difference dominates, stones
+    // on each side count a little, and having the move is worth a small bonus.
+    // O(1): side totals are maintained incrementally by the game.
+    public static double evaluate(SungkaGame g, Player p) {
+        Player opp = g.getOpponent(p);
+        int houseDiff = g.getHouseStones(p) - g.getHouseStones(opp);
+        int sideDiff = g.getSideStones(p) - g.getSideStones(opp);
+        double score = houseDiff * 10.0 + sideDiff * 0.5;
+        if (g.getCurrent() == p) score += 2.0;
+        return score;
+    }
+}
@@ -6,7 +6,8 @@ import sungka.model.Player;
  // Thin facade that selects a concrete AI implementation by difficulty
  // and delegates `chooseMove(...)` calls to it.
 public class SimpleAI {
-    public enum Difficulty { EASY, MEDIUM, HARD }
+    // EXPERT is the Monte Carlo tree search player
+    public enum Difficulty { EASY, MEDIUM, HARD, EXPERT }
 
     private final AIPlayer impl;
 
@@ -14,6 +15,7 @@ public class SimpleAI {
         switch (d) {
             case EASY: impl = new EasyAI(); break;
             case MEDIUM: impl = new MediumAI(); break;
+            case EXPERT: impl = new MctsAI(); break;
             case HARD: default: impl = new HardAI(); break;
         }
     }
@@ -21,4 +23,9 @@ public class SimpleAI {
     public int chooseMove(SungkaGame game, Player ai) {
         return impl.chooseMove(game, ai);
     }
+
+    // Release the engine's helper threads (call when the game is over or abandoned).
+    public void shutdown() {
+        if (impl instanceof MctsAI) ((MctsAI) impl).shutdown();
+    }
 }
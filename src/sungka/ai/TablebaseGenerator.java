@@ -0,0 +1,189 @@
+package sungka.ai;
+
+import sungka.core.BoardState;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+ // Offline builder for EndgameTablebase files.
+ // Levels are solved in order of stone count. A move either banks stones (the
+ // child is on a lower, already solved level, or the game ends at the
+ // threshold) or only moves stones along the mover's own side towards its
+ // house (the child is on the same level, with the same needs swapped, since
+ // the turn passes). Same-level moves depend only on the pit layout, so a level
+ // is solved by retrograde analysis over layouts, each carrying its block of
+ // need pairs: a layout counts its unsolved same-level children, layouts with
+ // none are queued, and solving one backs its values up into its parents and
+ // queues those whose count drops to zero. Same-level moves bring every stone
+ // closer to its house, so the layouts form no cycles and the queue reaches
+ // all of them; any that were left over (or depend on an unresolved value)
+ // would be stored as unknown and reported. Expanding the moves of each
+ // layout runs as a parallel stream across all cores.
+ // Usage: TablebaseGenerator [maxStones] [output file]
+public class TablebaseGenerator {
+    // child slot marker: no same-level move
+    private static final int NONE = -1;
+    // value of a position while none of its moves has been folded in (real values are within +-MAX_LEVEL)
+    private static final byte NO_VALUE = Byte.MIN_VALUE + 1;
+
+    public static void main(String[] args) throws IOException {
+        int maxStones = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        Path out = Paths.get(args.length > 1 ? args[1] : EndgameTablebase.DEFAULT_FILE);
+        if (maxStones < 0 || maxStones > EndgameTablebase.MAX_LEVEL) {
+            throw new IllegalArgumentException("maxStones must be in 0.." + EndgameTablebase.MAX_LEVEL);
+        }
+        long t0 = System.nanoTime();
+        byte[][] levels = new byte[maxStones + 1][];
+        for (int n = 0; n <= maxStones; n++) {
+            long t = System.nanoTime();
+            levels[n] = solveLevel(n, levels);
+            System.out.printf("level %2d: %,d positions in %.1f s%n", n, levels[n].length, (System.nanoTime() - t) / 1e9);
+        }
+        try (FileChannel ch = FileChannel.open(out, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ch.write(EndgameTablebase.header(maxStones));
+            for (byte[] level : levels) {
+                ByteBuffer b = ByteBuffer.wrap(level);
+                while (b.hasRemaining()) ch.write(b);
+            }
+        }
+        System.out.printf("wrote %s (%,d bytes) in %.1f s%n", out, EndgameTablebase.HEADER_BYTES + EndgameTablebase.totalSize(maxStones),
+                (System.nanoTime() - t0) / 1e9);
+    }
+
+    // Solve every position with n small-pit stones, A to move (canonical form).
+    static byte[] solveLevel(int n, byte[][] lower) {
+        int ranks = Math.toIntExact(EndgameTablebase.rankCount(n));
+        int block = (n + 1) * (n + 1);
+        // best value found so far per position; final once the layout is solved
+        byte[] values = new byte[Math.toIntExact(EndgameTablebase.levelSize(n))];
+        // per move of each layout: same-level child layout, or NONE
+        int[] edges = new int[ranks * 7];
+        ThreadLocal<BoardState> scratch = ThreadLocal.withInitial(BoardState::new);
+        ThreadLocal<int[]> parts = ThreadLocal.withInitial(() -> new int[EndgameTablebase.PITS]);
+        IntStream.range(0, ranks).parallel().forEach(r -> expand(r, n, lower, scratch.get(), parts.get(), values, edges));
+
+        // unsolved same-level children per layout, and the parents of each layout (CSR)
+        int[] pending = new int[ranks];
+        int[] parentStart = new int[ranks + 1];
+        for (int e = 0; e < edges.length; e++) {
+            if (edges[e] == NONE) continue;
+            pending[e / 7]++;
+            parentStart[edges[e] + 1]++;
+        }
+        for (int r = 0; r < ranks; r++) parentStart[r + 1] += parentStart[r];
+        int[] parents = new int[parentStart[ranks]];
+        int[] fill = Arrays.copyOf(parentStart, ranks);
+        for (int e = 0; e < edges.length; e++) {
+            if (edges[e] != NONE) parents[fill[edges[e]]++] = e / 7;
+        }
+
+        int[] queue = new int[ranks];
+        int head = 0, tail = 0;
+        for (int r = 0; r < ranks; r++) if (pending[r] == 0) queue[tail++] = r;
+        int w = n + 1;
+        while (head < tail) {
+            int c = queue[head++];
+            for (int k = parentStart[c]; k < parentStart[c + 1]; k++) {
+                int p = parents[k];
+                // the turn passes: the child's mover is the parent's opponent
+                for (int me = 0; me < w; me++) {
+                    for (int opp = 0; opp < w; opp++) {
+                        int at = p * block + me * w + opp;
+                        values[at] = better(values[at], values[c * block + opp * w + me], true);
+                    }
+                }
+                if (--pending[p] == 0) queue[tail++] = p;
+            }
+        }
+        if (tail < ranks) {
+            for (int r = 0; r < ranks; r++) {
+                if (pending[r] != 0) Arrays.fill(values, r * block, (r + 1) * block, EndgameTablebase.UNKNOWN);
+            }
+        }
+        long unknown = 0;
+        for (byte v : values) if (v == EndgameTablebase.UNKNOWN) unknown++;
+        if (unknown > 0) {
+            System.err.printf("level %d: %,d positions left unresolved (%,d layouts in cycles), stored as misses%n", n, unknown, ranks - tail);
+        }
+        return values;
+    }
+
+    // Play every move of layout `r` once: record its same-level child, and fold
+    // the values of moves that bank stones into the layout's block of need pairs.
+    private static void expand(int r, int n, byte[][] lower, BoardState s, int[] parts, byte[] values, int[] edges) {
+        int w = n + 1, base = r * w * w;
+        EndgameTablebase.unrank(r, n, parts);
+        boolean anyMove = false;
+        Arrays.fill(values, base, base + w * w, NO_VALUE);
+        for (int k = 0; k < 7; k++) {
+            edges[r * 7 + k] = NONE;
+            if (parts[7 + k] == 0) continue;
+            anyMove = true;
+            load(s, parts);
+            s.makeMove(8 + k);
+            // canonical child: the mover of the child position is A
+            boolean passes = s.current != BoardState.SIDE_A;
+            int oppStart = passes ? 8 : 0;
+            int childN = 0;
+            for (int j = 0; j < EndgameTablebase.PITS; j++) {
+                int pit = j < 7 ? oppStart + j : (8 - oppStart) + j - 7;
+                childN += parts[j] = s.stones[pit];
+            }
+            long childRank = EndgameTablebase.rank(parts, childN);
+            EndgameTablebase.unrank(r, n, parts);
+            if (childN == n) {
+                edges[r * 7 + k] = (int) childRank;
+                continue;
+            }
+            // only the mover banks: its house takes `banked`, the opponent's is skipped
+            int banked = n - childN;
+            byte[] child = lower[childN];
+            for (int me = 1; me <= w; me++) {
+                for (int opp = 1; opp <= w; opp++) {
+                    int at = (me - 1) * w + opp - 1;
+                    int needMe = me - banked;
+                    byte v;
+                    if (needMe <= 0) {
+                        // the mover reached the threshold: the game is over
+                        v = (byte) banked;
+                    } else {
+                        byte c = passes ? child[(int) EndgameTablebase.index(childRank, childN, opp, needMe)]
+                                : child[(int) EndgameTablebase.index(childRank, childN, needMe, opp)];
+                        v = c == EndgameTablebase.UNKNOWN ? c : (byte) (banked + (passes ? -c : c));
+                    }
+                    values[base + at] = better(values[base + at], v, false);
+                }
+            }
+        }
+        // no move: the game stops here and nothing more is banked
+        if (!anyMove) Arrays.fill(values, base, base + w * w, (byte) 0);
+    }
+
+    // Fold a child value (negated when the turn passes) into the best so far.
+    // An UNKNOWN child makes the position UNKNOWN for good: its best move cannot be known.
+    private static byte better(byte best, byte child, boolean negate) {
+        if (best == EndgameTablebase.UNKNOWN || child == EndgameTablebase.UNKNOWN) return EndgameTablebase.UNKNOWN;
+        int v = negate ? -child : child;
+        return best == NO_VALUE || v > best ? (byte) v : best;
+    }
+
+    // Reset `s` to the canonical position `parts` (A to move, empty houses, no power-ups).
+    private static void load(BoardState s, int[] parts) {
+        Arrays.fill(s.stones, 0);
+        Arrays.fill(s.powerUps, (byte) 0);
+        for (int j = 0; j < 7; j++) { s.stones[j] = parts[j]; s.stones[8 + j] = parts[7 + j]; }
+        s.current = BoardState.SIDE_A;
+        s.flags = 0;
+        s.protectedPit[0] = s.protectedPit[1] = -1;
+        s.protectedTurns[0] = s.protectedTurns[1] = 0;
+        s.usedThisTurn[0] = s.usedThisTurn[1] = 0;
+        // the threshold is applied from the needs, not by the state
+        s.winThreshold = Integer.MAX_VALUE;
+    }
+}
@@ -0,0 +1,40 @@
+package sungka.ai;
+
+ // Fixed-size cache of search results keyed by SungkaGame.zobristKey().
+ // Entries are packed into a single long (see pack / scoreOf / depthOf ...),
+ // with 0 reserved for "no entry".
+public interface TranspositionTable {
+    // bound types
+    int EXACT = 1, LOWER = 2, UPPER = 3;
+
+    // Return the packed entry stored for `key`, or 0 if absent.
+    long probe(long key);
+
+    // Store a search result; the table decides whether it replaces an existing entry.
+    void store(long key, int depth, int bound, int move, double score);
+
+    // Start a new search generation (older entries become preferred replacement victims).
+    void newSearch();
+
+    void clear();
+
+    // Entry layout: bits 0-31 score (float), 32-39 depth, 40-41 bound, 42-46 move + 1, 47-54 generation.
+    static long pack(int depth, int bound, int move, double score, int generation) {
+        return (Float.floatToRawIntBits((float) score) & 0xFFFFFFFFL)
+                | ((long) (depth & 0xFF) << 32)
+                | ((long) (bound & 3) << 40)
+                | ((long) ((move + 1) & 0x1F) << 42)
+                | ((long) (generation & 0xFF) << 47);
+    }
+
+    static double scoreOf(long entry) { return Float.intBitsToFloat((int) entry); }
+
+    static int depthOf(long entry) { return (int) (entry >>> 32) & 0xFF; }
+
+    static int boundOf(long entry) { return (int) (entry >>> 40) & 3; }
+
+    // Best move pit index, or -1 if none was recorded.
+    static int moveOf(long entry) { return ((int) (entry >>> 42) & 0x1F) - 1; }
+
+    static int generationOf(long entry) { return (int) (entry >>> 47) & 0xFF; }
+}
@@ -0,0 +1,308 @@
+package sungka.core;
+
+import sungka.model.Pit;
+import sungka.model.Player;
+import sungka.powerups.PowerUp;
+import sungka.powerups.PowerUpEffects;
+import sungka.powerups.PowerUpManager;
+import sungka.powerups.PowerUpTarget;
+
+    // Compact value representation of a game position for search engines.
+    // Stones live in a flat int[16], power-ups as byte ids (PowerUpManager.idOf),
+    // and turn/flag state in primitive fields. The rules mirror SungkaGame exactly,
+    // but playing a move never allocates, so engines can copy and mutate freely.
+public final class BoardState implements PowerUpTarget {
+    // side indices: A owns 8..14 (house 15), B owns 0..6 (house 7)
+    public static final int SIDE_A = 0, SIDE_B = 1;
+
+    // bits of `flags`
+    public static final int FLAG_DOUBLE_CAPTURE = 1;
+    public static final int FLAG_BONUS_TURN = 2;
+    public static final int FLAG_REVERSE_SOWING = 4;
+    public static final int FLAG_SKIP_OPPONENT = 8;
+    public static final int FLAG_SHIELD_A = 16;
+    public static final int FLAG_SHIELD_B = 32;
+
+    // per-turn power-up activation budget and refill cap (same as SungkaGame)
+    static final int MAX_ACTIVATIONS = 2;
+    static final int REFILL_CAP = 3;
+
+    public final int[] stones = new int[16];
+    // power-up id per pit, 0 = none
+    public final byte[] powerUps = new byte[16];
+    // side to move (SIDE_A / SIDE_B)
+    public int current = SIDE_A;
+    public int flags;
+    // protected pit per side (-1 = none) and remaining shield turns
+    public final int[] protectedPit = { -1, -1 };
+    public final int[] protectedTurns = new int[2];
+    public final int[] usedThisTurn = new int[2];
+    // last captured-and-activated power-up per side (display only)
+    public final byte[] activePowerUp = new byte[2];
+    public int winThreshold = SungkaGame.WIN_THRESHOLD;
+
+    // enabled power-up ids drawn from on refill
+    private byte[] pool = new byte[0];
+    private int allowedMask;
+    // random source for refills and captured power-up placement
+    private GameRandom rnd = new GameRandom();
+
+    // side geometry helpers
+    public static int startOf(int side) { return side == SIDE_A ? 8 : 0; }
+    public static int endOf(int side) { return side == SIDE_A ? 14 : 6; }
+    public static int houseOf(int side) { return side == SIDE_A ? 15 : 7; }
+    public static boolean owns(int side, int pit) { return pit >= startOf(side) && pit <= endOf(side); }
+
+    // Capture a snapshot of the given game.
+    public static BoardState of(SungkaGame g) {
+        BoardState s = new BoardState();
+        for (int i = 0; i < 16; i++) {
+            Pit p = g.board[i];
+            s.stones[i] = p.getStones();
+            s.powerUps[i] = p.getPowerUpId();
+        }
+        s.current = g.current == g.playerA ? SIDE_A : SIDE_B;
+        int f = 0;
+        if (g.isDoubleCapture()) f |= FLAG_DOUBLE_CAPTURE;
+        if (g.isBonusTurn()) f |= FLAG_BONUS_TURN;
+        if (g.isReverseSowing()) f |= FLAG_REVERSE_SOWING;
+        if (g.isSkipOpponent()) f |= FLAG_SKIP_OPPONENT;
+        if (g.isShielded(g.playerA)) f |= FLAG_SHIELD_A;
+        if (g.isShielded(g.playerB)) f |= FLAG_SHIELD_B;
+        s.flags = f;
+        for (int side = 0; side < 2; side++) {
+            Player p = side == SIDE_A ? g.playerA : g.playerB;
+            s.protectedPit[side] = g.getProtectedPitIndex(p);
+            s.protectedTurns[side] = g.getProtectedPitTurns(p);
+            s.usedThisTurn[side] = g.getPowerUpsUsedThisTurn(p);
+            PowerUp active = g.getActivePowerUp(p);
+            s.activePowerUp[side] = active == null ? 0 : active.getId();
+        }
+        s.winThreshold = g.getWinThreshold();
+        s.setAllowedMask(g.pum.getAllowedMask());
+        s.rnd = g.rnd.fork();
+        return s;
+    }
+
+    // Write this position back into a game.
+    public void applyTo(SungkaGame g) {
+        for (int i = 0; i < 16; i++) {
+            Pit p = g.board[i];
+            p.setStones(stones[i]);
+            p.setPowerUpId(powerUps[i]);
+        }
+        g.current = current == SIDE_A ? g.playerA : g.playerB;
+        g.setDoubleCapture((flags & FLAG_DOUBLE_CAPTURE) != 0);
+        g.setBonusTurn((flags & FLAG_BONUS_TURN) != 0);
+        g.setReverseSowing((flags & FLAG_REVERSE_SOWING) != 0);
+        g.setSkipOpponent((flags & FLAG_SKIP_OPPONENT) != 0);
+        g.setShieldForPlayer(g.playerA, (flags & FLAG_SHIELD_A) != 0);
+        g.setShieldForPlayer(g.playerB, (flags & FLAG_SHIELD_B) != 0);
+        for (int side = 0; side < 2; side++) {
+            Player p = side == SIDE_A ? g.playerA : g.playerB;
+            g.setProtectedPit(p, protectedPit[side], protectedTurns[side]);
+            g.setPowerUpsUsedThisTurn(p, usedThisTurn[side]);
+            if (activePowerUp[side] == 0) g.clearActivePowerUp(p);
+            else g.setActivePowerUp(p, PowerUpManager.byId(activePowerUp[side]));
+        }
+        g.setWinThreshold(winThreshold);
+    }
+
+    // Return an independent copy (the random source is shared, like SungkaGame.copy shares its manager).
+    public BoardState copy() {
+        BoardState s = new BoardState();
+        s.copyFrom(this);
+        return s;
+    }
+
+    // Overwrite this state with another one without allocating.
+    public void copyFrom(BoardState o) {
+        System.arraycopy(o.stones, 0, stones, 0, 16);
+        System.arraycopy(o.powerUps, 0, powerUps, 0, 16);
+        current = o.current;
+        flags = o.flags;
+        protectedPit[0] = o.protectedPit[0]; protectedPit[1] = o.protectedPit[1];
+        protectedTurns[0] = o.protectedTurns[0]; protectedTurns[1] = o.protectedTurns[1];
+        usedThisTurn[0] = o.usedThisTurn[0]; usedThisTurn[1] = o.usedThisTurn[1];
+        activePowerUp[0] = o.activePowerUp[0]; activePowerUp[1] = o.activePowerUp[1];
+        winThreshold = o.winThreshold;
+        pool = o.pool;
+        allowedMask = o.allowedMask;
+        rnd = o.rnd;
+    }
+
+    // Configure which power-up ids refills draw from (bit 1 << id per enabled id).
+    public void setAllowedMask(int mask) {
+        int n = Integer.bitCount(mask & 0x7FE);
+        byte[] p = new byte[n];
+        int k = 0;
+        for (int id = 1; id <= 10; id++) if ((mask & (1 << id)) != 0) p[k++] = (byte) id;
+        pool = p;
+        allowedMask = mask & 0x7FE;
+    }
+
+    public int getAllowedMask() { return allowedMask; }
+
+    public void setRandom(GameRandom r) { rnd = r; }
+
+    // Return the winning side (house at or above threshold), or -1.
+    public int winner() {
+        if (stones[15] >= winThreshold) return SIDE_A;
+        if (stones[7] >= winThreshold) return SIDE_B;
+        return -1;
+    }
+
+    // Sow from the given pit for the side to move. Same rules as SungkaGame.makeMove.
+    public boolean makeMove(int pitIndex) {
+        int me = current;
+        if (!owns(me, pitIndex) || stones[pitIndex] == 0) return false;
+
+        int n = stones[pitIndex];
+        stones[pitIndex] = 0;
+        boolean cc = (flags & FLAG_REVERSE_SOWING) != 0;
+        flags &= ~FLAG_REVERSE_SOWING;
+
+        int pos = Sowing.sow(stones, me, cc, pitIndex, n);
+
+        // landed in own house: keep the turn without ending it
+        if (pos == houseOf(me)) return true;
+
+        if (owns(me, pos) && stones[pos] == 1) {
+            int opp = 1 - me;
+            int oppPos = 14 - pos;
+            if (protectedPit[opp] == oppPos) {
+                protectedPit[opp] = -1;
+                protectedTurns[opp] = 0;
+            } else {
+                int captured = stones[oppPos];
+                if ((flags & FLAG_DOUBLE_CAPTURE) != 0) captured *= 2;
+                stones[houseOf(me)] += captured + 1;
+                stones[oppPos] = 0;
+                stones[pos] = 0;
+
+                byte id = powerUps[oppPos];
+                if (id != 0) {
+                    powerUps[oppPos] = 0;
+                    if (usedThisTurn[me] < MAX_ACTIVATIONS) {
+                        activePowerUp[me] = id;
+                        applyPowerUp(id, me, pos);
+                        incrementUsed(me);
+                    } else {
+                        storeCaptured(me, id);
+                    }
+                }
+                flags &= ~FLAG_DOUBLE_CAPTURE;
+            }
+        }
+        endTurn();
+        return true;
+    }
+
+    // Activate the power-up in a pit owned by the side to move. Same rules as
+    // SungkaGame.activatePowerUpInPit (the power-up is consumed even when the budget is spent).
+    public boolean activatePowerUpInPit(int pitIndex) {
+        int me = current;
+        if (!owns(me, pitIndex)) return false;
+        byte id = powerUps[pitIndex];
+        if (id == 0) return false;
+        powerUps[pitIndex] = 0;
+        flags &= ~FLAG_BONUS_TURN;
+        if (usedThisTurn[me] >= MAX_ACTIVATIONS) return false;
+        applyPowerUp(id, me, pitIndex);
+        incrementUsed(me);
+        return true;
+    }
+
+    // Execute a power-up effect for `side`, targeting `pit` where relevant.
+    void applyPowerUp(byte id, int side, int pit) { PowerUpEffects.apply(id, this, side, pit); }
+
+    // PowerUpTarget: effects act on the raw arrays and flag bits; events are dropped.
+    @Override
+    public int stonesAt(int pit) { return stones[pit]; }
+
+    @Override
+    public void setStonesAt(int pit, int n) { stones[pit] = n; }
+
+    @Override
+    public void setDoubleCapture(boolean v) { setFlag(FLAG_DOUBLE_CAPTURE, v); }
+
+    @Override
+    public void setBonusTurn(boolean v) { setFlag(FLAG_BONUS_TURN, v); }
+
+    @Override
+    public void setReverseSowing(boolean v) { setFlag(FLAG_REVERSE_SOWING, v); }
+
+    @Override
+    public void setSkipOpponent(boolean v) { setFlag(FLAG_SKIP_OPPONENT, v); }
+
+    @Override
+    public void protectPit(int side, int pit, int turns) {
+        protectedPit[side] = pit;
+        protectedTurns[side] = turns;
+    }
+
+    @Override
+    public void emit(GameEvent e, int side, int a, int b) { }
+
+    private void setFlag(int bit, boolean v) { flags = v ? flags | bit : flags & ~bit; }
+
+    private void incrementUsed(int side) {
+        if (++usedThisTurn[side] >= MAX_ACTIVATIONS) {
+            for (int i = startOf(side); i <= endOf(side); i++) powerUps[i] = 0;
+        }
+    }
+
+    // Put a captured power-up into a random free, unprotected pit on `side`, or discard it.
+    private void storeCaptured(int side, byte id) {
+        int free = 0;
+        for (int i = startOf(side); i <= endOf(side); i++) if (i != protectedPit[side] && powerUps[i] == 0) free++;
+        if (free == 0) return;
+        int pick = rnd.nextInt(free);
+        for (int i = startOf(side); i <= endOf(side); i++) {
+            if (i == protectedPit[side] || powerUps[i] != 0) continue;
+            if (pick-- == 0) { powerUps[i] = id; return; }
+        }
+    }
+
+    // Same turn hand-over as SungkaGame.endTurn.
+    private void endTurn() {
+        if ((flags & FLAG_BONUS_TURN) != 0) {
+            flags &= ~FLAG_BONUS_TURN;
+            refresh(current);
+            return;
+        }
+        int prev = current;
+        if ((flags & FLAG_SKIP_OPPONENT) != 0) flags &= ~FLAG_SKIP_OPPONENT;
+        else current = 1 - current;
+        refresh(prev);
+        if (current != prev) usedThisTurn[current] = 0;
+        for (int side = 0; side < 2; side++) {
+            if (protectedTurns[side] > 0 && --protectedTurns[side] <= 0) {
+                protectedPit[side] = -1;
+                protectedTurns[side] = 0;
+            }
+        }
+    }
+
+    // Clear the side's power-ups and place up to REFILL_CAP random ones, skipping the protected pit.
+    private void refresh(int side) {
+        int start = startOf(side);
+        int slots = 0;
+        for (int i = start; i < start + 7; i++) {
+            powerUps[i] = 0;
+            if (i != protectedPit[side]) slots |= 1 << (i - start);
+        }
+        if (pool.length == 0) return;
+        int free = Integer.bitCount(slots);
+        int toPlace = Math.min(REFILL_CAP, free);
+        for (int k = 0; k < toPlace; k++) {
+            // pick the r-th remaining free slot
+            int r = rnd.nextInt(free - k);
+            int bits = slots;
+            while (r-- > 0) bits &= bits - 1;
+            int bit = Integer.numberOfTrailingZeros(bits);
+            slots &= ~(1 << bit);
+            powerUps[start + bit] = pool[rnd.nextInt(pool.length)];
+        }
+    }
+}
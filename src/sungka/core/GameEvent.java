@@ -0,0 +1,58 @@
+package sungka.core;
+
+import sungka.powerups.PowerUp;
+import sungka.powerups.PowerUpManager;
+
+    // Kinds of things that happen during play, reported to a GameEventListener
+    // together with the acting side and up to two int arguments (`a`, `b`).
+    // Each kind documents its arguments and carries the text the UI shows;
+    // formatting only happens when a consumer calls format().
+public enum GameEvent {
+    // a, b unused
+    HOUSE_LANDING("%1$s landed in house and gets another turn."),
+    // side = the pit's owner, a = protected pit
+    SHIELD_BLOCKED("%1$s's pit shield prevented a capture on pit %2$d."),
+    // a = opponent pit captured from, b = stones captured (before the +1)
+    CAPTURE("%1$s captured %3$d from pit %2$d (plus 1)."),
+    // a = power-up id (PowerUpManager.idOf)
+    CAPTURED_POWER_UP_ACTIVATED("%1$s activated captured power-up %4$s."),
+    // a = pit the power-up was stored in
+    CAPTURED_POWER_UP_STORED("%1$s captured a power-up but reached per-turn limit; stored in pit %2$d."),
+    CAPTURED_POWER_UP_DISCARDED("%1$s captured a power-up but has no space to store it; it is discarded."),
+    ACTIVATION_LIMIT("%1$s has already used maximum power-ups this turn."),
+    POWER_UPS_WIPED("%1$s reached power-up limit: all power-ups on their side were wiped."),
+    BONUS_TURN_KEPT("%1$s keeps turn due to BonusTurn."),
+    // side = the player who was skipped
+    TURN_SKIPPED("%1$s was skipped."),
+    // a = power-up id
+    NEEDS_TARGET("%4$s needs a pit target."),
+    DOUBLE_CAPTURE("%1$s activated Double Capture."),
+    BONUS_TURN("%1$s activated Bonus Turn."),
+    REVERSE_SOWING("%1$s activated Reverse Sowing."),
+    // a = target pit, b = shells pulled
+    SHELL_MAGNET("%1$s activated Shell Magnet and pulled %3$d shells into pit %2$d."),
+    // a = shells stolen
+    STEAL_SHELLS("%1$s activated Steal Shells: stole %2$d from opponent house."),
+    // a = protected pit, b = turns
+    PIT_SHIELD("%1$s activated Pit Shield on pit %2$d (%3$d turns)."),
+    // a = target pit, b = shells added
+    ADD_SHELLS("%1$s added %3$d shells to pit %2$d."),
+    SWAP_HOUSES("%1$s swapped houses with opponent."),
+    SKIP_OPPONENT("%1$s activated Skip Opponent Turn."),
+    // a = shells added to the house
+    LUCKY_DROP("%1$s got a Lucky Drop (+%2$d to house).");
+
+    private final String template;
+
+    GameEvent(String template) { this.template = template; }
+
+    // Human-readable message for this event.
+    public String format(String playerName, int a, int b) {
+        String powerUp = "Power-up";
+        if (this == CAPTURED_POWER_UP_ACTIVATED || this == NEEDS_TARGET) {
+            PowerUp pu = PowerUpManager.byId((byte) a);
+            if (pu != null) powerUp = pu.getName();
+        }
+        return String.format(template, playerName, a, b, powerUp);
+    }
+}
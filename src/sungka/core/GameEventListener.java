@@ -0,0 +1,8 @@
+package sungka.core;
+
+// Receives game events. `side` is 0 for player A and 1 for player B; `a` and
+// `b` are the event's arguments (see GameEvent). Games call this only when a
+// listener is installed, so search copies without one pay nothing.
+public interface GameEventListener {
+    void onEvent(GameEvent event, int side, int a, int b);
+}
@@ -0,0 +1,33 @@
+package sungka.core;
+
+import java.util.ArrayDeque;
+
+    // Reusable scratch games for AI search. acquire() fills a pooled game from the
+    // source via copyInto instead of allocating a new SungkaGame (16 pits and maps)
+    // per decision. Not thread-safe: keep one pool per engine or thread.
+public final class GamePool {
+    private final ArrayDeque<SungkaGame> free = new ArrayDeque<>();
+    private final int maxSize;
+
+    public GamePool() { this(8); }
+
+    public GamePool(int maxSize) { this.maxSize = Math.max(1, maxSize); }
+
+    // Return a scratch game holding a copy of `src`. Pooled games are only reused
+    // when they share src's players, so callers can keep using src's Player objects.
+    public SungkaGame acquire(SungkaGame src) {
+        SungkaGame g;
+        while ((g = free.poll()) != null) {
+            if (g.playerA == src.playerA) {
+                src.copyInto(g);
+                return g;
+            }
+        }
+        return src.copy();
+    }
+
+    // Hand a scratch game back for reuse.
+    public void release(SungkaGame g) {
+        if (g != null && free.size() < maxSize) free.push(g);
+    }
+}
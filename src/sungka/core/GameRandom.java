@@ -0,0 +1,81 @@
+package sungka.core;
+
+import java.util.List;
+
+    // Seedable SplitMix64 generator used for every random choice of a game.
+    // One instance belongs to one game and is used by one thread at a time, so
+    // draws are plain field updates (no CAS as in java.util.Random).
+    // fork() derives an independent stream for a copy without advancing this
+    // one, so simulations made from a game never change the game's own draws:
+    // a game is replayable from its seed however much the AI searched.
+public final class GameRandom {
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+    private static long seedUniquifier = System.nanoTime();
+
+    private long state;
+    // forks made so far; mixed into each child seed so sibling copies differ
+    // (search threads may fork one game concurrently: a lost update only means two copies share a stream)
+    private long forks;
+
+    // Seed from the clock (for games that need not be replayed).
+    public GameRandom() { this(nextDefaultSeed()); }
+
+    public GameRandom(long seed) { this.state = seed; }
+
+    private static synchronized long nextDefaultSeed() {
+        seedUniquifier += GOLDEN_GAMMA;
+        return mix(seedUniquifier ^ System.nanoTime());
+    }
+
+    public long nextLong() { return mix(state += GOLDEN_GAMMA); }
+
+    public int nextInt() { return (int) (nextLong() >>> 32); }
+
+    // Uniform int in [0, bound) (bound > 0), by Lemire's multiply-shift with rejection.
+    public int nextInt(int bound) {
+        if (bound <= 0) throw new IllegalArgumentException("bound must be positive");
+        long m = (nextLong() >>> 32) * bound;
+        if ((m & 0xFFFFFFFFL) < bound) {
+            long threshold = (0x100000000L - bound) % bound;
+            while ((m & 0xFFFFFFFFL) < threshold) m = (nextLong() >>> 32) * bound;
+        }
+        return (int) (m >>> 32);
+    }
+
+    public double nextDouble() { return (nextLong() >>> 11) * 0x1.0p-53; }
+
+    public boolean nextBoolean() { return nextLong() < 0; }
+
+    // Raw generator state, for callers that rewind or re-seed a stream (e.g. search sampling).
+    public long getState() { return state; }
+
+    public void setState(long state) { this.state = state; }
+
+    // Independent stream for a copy of the game; this stream's draws are unaffected.
+    public GameRandom fork() { return new GameRandom(childSeed()); }
+
+    // Like fork(), but reseeds an existing instance (for pooled copies).
+    public void forkInto(GameRandom target) {
+        target.state = childSeed();
+        target.forks = 0;
+    }
+
+    private long childSeed() { return mix(state ^ mix(++forks * GOLDEN_GAMMA + 0x632BE59BD9B4E019L)); }
+
+    // In-place Fisher-Yates shuffle.
+    public <T> void shuffle(List<T> list) {
+        for (int i = list.size() - 1; i > 0; i--) {
+            int j = nextInt(i + 1);
+            T t = list.get(i);
+            list.set(i, list.get(j));
+            list.set(j, t);
+        }
+    }
+
+    // SplitMix64 finalizer.
+    public static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
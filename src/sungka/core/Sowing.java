@@ -0,0 +1,73 @@
+package sungka.core;
+
+import sungka.model.Pit;
+
+    // Closed-form sowing. A sow passes every pit except the opponent's house,
+    // so each full lap of 15 stones adds one stone to the same 15 pits (the start
+    // pit included). Only the remaining n % 15 stones need a walk, and the pits
+    // they reach are precomputed here per (mover, direction, start pit).
+    // Sides are 0 = A (skips house 7) and 1 = B (skips house 15).
+public final class Sowing {
+    // pits that receive stones per lap
+    public static final int LAP = 15;
+
+    // ORDER[base(side, reverse, start) + k] = k-th pit (0-based) receiving a stone
+    private static final byte[] ORDER = new byte[2 * 2 * 16 * LAP];
+
+    static {
+        for (int side = 0; side < 2; side++) {
+            int skip = side == 0 ? 7 : 15;
+            for (int rev = 0; rev < 2; rev++) {
+                int step = rev == 0 ? 1 : 15;
+                for (int start = 0; start < 16; start++) {
+                    int at = base(side, rev == 1, start);
+                    int pos = start;
+                    for (int k = 0; k < LAP; ) {
+                        pos = (pos + step) & 15;
+                        if (pos != skip) ORDER[at + k++] = (byte) pos;
+                    }
+                }
+            }
+        }
+    }
+
+    private Sowing() { }
+
+    private static int base(int side, boolean reverse, int start) {
+        return (((side << 1) | (reverse ? 1 : 0)) * 16 + start) * LAP;
+    }
+
+    // The k-th pit (0-based, any k >= 0) to receive a stone when `side` sows from `start`.
+    public static int pitAt(int side, boolean reverse, int start, int k) {
+        return ORDER[base(side, reverse, start) + k % LAP];
+    }
+
+    // Pit where the last of `stones` (> 0) stones lands.
+    public static int landing(int side, boolean reverse, int start, int stones) {
+        return ORDER[base(side, reverse, start) + (stones - 1) % LAP];
+    }
+
+    // Sow `n` stones from `start` into a raw board (the start pit is not emptied
+    // here); returns the landing pit. Touches each receiving pit once.
+    public static int sow(int[] board, int side, boolean reverse, int start, int n) {
+        int at = base(side, reverse, start);
+        int laps = n / LAP, rem = n % LAP;
+        if (laps > 0) {
+            for (int k = 0; k < LAP; k++) board[ORDER[at + k]] += laps;
+        }
+        for (int k = 0; k < rem; k++) board[ORDER[at + k]]++;
+        return ORDER[at + (n - 1) % LAP];
+    }
+
+    // Same for game pits: each receiving pit gets a single setStones call.
+    static int sow(Pit[] board, int side, boolean reverse, int start, int n) {
+        int at = base(side, reverse, start);
+        int laps = n / LAP, rem = n % LAP;
+        int count = laps > 0 ? LAP : rem;
+        for (int k = 0; k < count; k++) {
+            Pit p = board[ORDER[at + k]];
+            p.setStones(p.getStones() + laps + (k < rem ? 1 : 0));
+        }
+        return ORDER[at + (n - 1) % LAP];
+    }
+}
@@ -5,12 +5,14 @@ import sungka.model.Player;
 import sungka.powerups.PowerUpManager;
 import sungka.config.GameConfig;
 import sungka.powerups.PowerUp;
+import sungka.powerups.PowerUpEffects;
+import sungka.powerups.PowerUpTarget;
 
 import java.util.*;
 
     // Core game model: board, players, turn logic, power-ups and win detection.
     // Final to avoid subclassing and to prevent 'this' escaping during construction.
-public final class SungkaGame {
+public final class SungkaGame implements PowerUpTarget {
     public static final int WIN_THRESHOLD = 50;
     // instance-level win threshold (configurable per-game)
     private int winThreshold = WIN_THRESHOLD;
@@ -21,51 +23,86 @@ public final class SungkaGame {
     public final Player playerB, playerA;
     // the player who has the current turn
     Player current;
-    // power-up manager (supplies and refills power-ups)
-    PowerUpManager pum = new PowerUpManager();
-    // pseudo-random source for placement choices
-    Random rnd = new Random();
+    // power-up manager (supplies and refills power-ups); shared by copies
+    PowerUpManager pum;
+    // pseudo-random source for placement choices; copies get forked streams
+    GameRandom rnd;
+    // seed this game (or the game it was copied from) was created with
+    private final long seed;
 
     // flags & states for power-ups
     private boolean doubleCapture = false;
     private boolean bonusTurn = false;
     private boolean reverseSowing = false;
     private boolean skipOpponent = false;
-    private final Map<Player, Boolean> shielded = new HashMap<>();
-    // protected pit index for each player (nullable) and remaining shield turns
-    private final Map<Player, Integer> protectedPit = new HashMap<>();
-    private final Map<Player, Integer> protectedPitTurns = new HashMap<>();
-    // currently active power-up per player (if any)
-    private final Map<Player, sungka.powerups.PowerUp> activePowerUp = new HashMap<>();
+    // per-player state below is indexed by Player.getIndex() (0 = A, 1 = B)
+    private final boolean[] shielded = new boolean[2];
+    // protected pit index for each player (-1 = none) and remaining shield turns
+    private final int[] protectedPit = { -1, -1 };
+    private final int[] protectedPitTurns = new int[2];
+    // id of the currently active power-up per player (0 = none)
+    private final byte[] activePowerUp = new byte[2];
     // number of power-ups used by each player in the current turn
-    private final Map<Player, Integer> powerUpsUsedThisTurn = new HashMap<>();
-
-    // logging hook for GUI
-    private ConsumerLogger logger = (s) -> {};
+    private final int[] powerUpsUsedThisTurn = new int[2];
+
+    // plies played on this game (pit index, | PLY_ACTIVATION for power-up activations)
+    public static final int PLY_ACTIVATION = 16;
+    private int[] plies = new int[0];
+    private int plyCount = 0;
+
+    // undo stack for in-place search (see makeMoveUndoable / unmakeMove); frames are reused
+    private UndoFrame[] undoStack = new UndoFrame[0];
+    private int undoDepth = 0;
+
+    // incremental Zobrist key over pit contents, maintained by `tracker`
+    private long pitKey = 0L;
+    // evaluation terms, also maintained by `tracker`: small-pit stone totals per
+    // side (0 = A, 1 = B), and bit masks (bit i = pit i) of non-empty pits and of pits holding a power-up
+    private final int[] sideStones = new int[2];
+    private int nonEmptyMask;
+    private int powerUpMask;
+    private final BoardTracker tracker = new BoardTracker();
+
+    // event hook for the GUI (null = no listener: events cost one null check)
+    private GameEventListener events;
+    // free-text logger installed through setLogger (null = none)
+    private ConsumerLogger logger;
+    // receives plies as they are played (null = none); see setPlyListener
+    private PlyListener plyListener;
 
     // Initialize board, players, and fill initial power-ups via PowerUpManager.
-    public SungkaGame() {
+    public SungkaGame() { this(new GameRandom().nextLong()); }
+
+    // Same as SungkaGame(), but every random choice (initial power-ups, refills,
+    // placements) follows from `seed`, so a game can be replayed exactly.
+    public SungkaGame(long seed) {
+        this(seed, PowerUpManager.maskOf(GameConfig.getInstance().getEnabledPowerUps()), GameConfig.getInstance().getWinThreshold());
+    }
+
+    // A game fully determined by its arguments (GameConfig is not consulted):
+    // the enabled power-ups are in place before the initial refill, so the
+    // same seed and configuration always give the same game.
+    public SungkaGame(long seed, int allowedPowerUpMask, int winThreshold) {
         for (int i = 0; i < 16; i++) {
             if (i == 7 || i == 15) board[i] = new Pit(0, true);
             else board[i] = new Pit(7, false);
         }
-        playerB = new Player("Player B", 0, 6, 7);
-        playerA = new Player("Player A", 8, 14, 15);
+        attachBoard();
+        playerB = new Player("Player B", 0, 6, 7, 1);
+        playerA = new Player("Player A", 8, 14, 15, 0);
         current = playerA;
-        shielded.put(playerA, false);
-        shielded.put(playerB, false);
-        powerUpsUsedThisTurn.put(playerA, 0);
-        powerUpsUsedThisTurn.put(playerB, 0);
-
-        // Apply central pre-game configuration (if present) so direct construction
-        // of SungkaGame picks up user-selected allowed power-ups and win threshold.
-        java.util.Set<String> cfgPUs = GameConfig.getInstance().getEnabledPowerUps();
-        if (cfgPUs != null) pum.setAllowedCodes(cfgPUs);
-        this.winThreshold = GameConfig.getInstance().getWinThreshold();
-
-        pum.refillToCap(playerA, board, 3);
-        pum.refillToCap(playerB, board, 3);
+        this.seed = seed;
+        this.rnd = new GameRandom(seed);
+        pum = new PowerUpManager();
+        pum.setAllowedMask(allowedPowerUpMask);
+        setWinThreshold(winThreshold);
+
+        pum.refillToCap(playerA, board, 3, rnd);
+        pum.refillToCap(playerB, board, 3, rnd);
     }
+    // Seed the game was created with (copies report their source's seed).
+    public long getSeed() { return seed; }
+
     // Set per-game win threshold (clamped to >= 1).
     public void setWinThreshold(int t) { this.winThreshold = Math.max(1, t); }
 
@@ -75,14 +112,50 @@ public final class SungkaGame {
     // Configure allowed power-up codes for this game (pass codes understood by PowerUpManager).
     public void setAllowedPowerUps(Collection<String> codes) { pum.setAllowedCodes(codes); }
 
-    // Set a logger callback used by the model to emit textual messages (UI may display these).
-    public void setLogger(ConsumerLogger l) { this.logger = l; }
+    // Enabled power-ups as a bit mask over compact ids (0 when power-ups are disabled).
+    public int getAllowedPowerUpMask() { return pum.getAllowedMask(); }
+
+    // State of this game's random stream. Search engines set it to replay a move
+    // under different refill draws and restore it afterwards.
+    public long getRandomState() { return rnd.getState(); }
+
+    public void setRandomState(long state) { rnd.setState(state); }
+
+    // Receive typed game events (null removes the listener).
+    public void setEventListener(GameEventListener l) { this.events = l; }
+
+    // True when a listener is installed, for callers that would do extra work to build an event.
+    public boolean hasEventListener() { return events != null; }
+
+    // Report an event by `p` to the listener, if any. Arguments are primitives, so this never allocates.
+    public void emit(GameEvent e, Player p, int a, int b) {
+        if (events != null) events.onEvent(e, p.getIndex(), a, b);
+    }
+
+    // Same as above with the side given as 0 (A) or 1 (B); used by power-up effects.
+    @Override
+    public void emit(GameEvent e, int side, int a, int b) {
+        if (events != null) events.onEvent(e, side, a, b);
+    }
+
+    // Set a text logger: events are formatted into messages for it (replaces any event listener).
+    public void setLogger(ConsumerLogger l) {
+        this.logger = l;
+        this.events = l == null ? null : (e, side, a, b) -> l.accept(e.format(playerOf(side).getName(), a, b));
+    }
 
     // Functional interface for a simple text logger.
     public interface ConsumerLogger { void accept(String s); }
 
-    // Emit a text message to the configured logger (no-op by default).
-    public void log(String s) { logger.accept(s); }
+    // Receive every ply as it is recorded (the value getPly returns); null removes the listener.
+    // Plies played through makeMoveUndoable / activatePowerUpUndoable are not reported, since search takes them back.
+    public void setPlyListener(PlyListener l) { this.plyListener = l; }
+
+    // Functional interface for ply listeners.
+    public interface PlyListener { void onPly(int ply); }
+
+    // Emit a free-text message to the logger set with setLogger (no-op by default).
+    public void log(String s) { if (logger != null) logger.accept(s); }
 
     // getters
     //Get the player whose turn it currently is.
@@ -98,79 +171,129 @@ public final class SungkaGame {
     // Whether sowing direction is currently reversed.
     public boolean isReverseSowing() { return reverseSowing; }
 
+    // Whether the next capture is doubled.
+    public boolean isDoubleCapture() { return doubleCapture; }
+
+    // Whether the current player keeps the turn after their next sow.
+    public boolean isBonusTurn() { return bonusTurn; }
+
+    // Whether the opponent will be skipped after the current turn.
+    public boolean isSkipOpponent() { return skipOpponent; }
+
     // flags setters
     // Enable/disable the double-capture effect for the next capture.
+    @Override
     public void setDoubleCapture(boolean v) { doubleCapture = v; }
 
     // Grant or revoke an immediate bonus-turn condition.
+    @Override
     public void setBonusTurn(boolean v) { bonusTurn = v; }
 
     // Set the reverse-sowing flag which affects the next sowing action.
+    @Override
     public void setReverseSowing(boolean v) { reverseSowing = v; }
 
     // Cause the opponent to be skipped on their next turn.
+    @Override
     public void setSkipOpponent(boolean v) { skipOpponent = v; }
 
     // Set whether a player's side is shielded (external helper).
-    public void setShieldForPlayer(Player p, boolean v) { shielded.put(p, v); }
+    public void setShieldForPlayer(Player p, boolean v) { shielded[p.getIndex()] = v; }
 
     // Return whether the given player is currently shielded.
-    public boolean isShielded(Player p) { return shielded.getOrDefault(p, false); }
+    public boolean isShielded(Player p) { return shielded[p.getIndex()]; }
 
     // Return the two adjacent pit indices (left and right) on the circular board.
-    // The returned list contains [leftIndex, rightIndex].
-
-    public List<Integer> getAdjacentIndices(int pitIdx) {
-        List<Integer> out = new ArrayList<>();
-        int left = (pitIdx - 1 + 16) % 16;
-        int right = (pitIdx + 1) % 16;
-        out.add(left); out.add(right);
-        return out;
+    // The returned list contains [leftIndex, rightIndex]; leftOf/rightOf avoid the list.
+    public List<Integer> getAdjacentIndices(int pitIdx) { return List.of(leftOf(pitIdx), rightOf(pitIdx)); }
+
+    // Neighbours of a pit on the circular board (houses included).
+    public static int leftOf(int pit) { return (pit + 15) & 15; }
+
+    public static int rightOf(int pit) { return (pit + 1) & 15; }
+
+    // --- Primitive move generation: pit sets as masks, bit i = pit i ---
+    // The seven small pits of `p`'s side.
+    public static int sideMask(Player p) { return 0x7F << p.getStart(); }
+
+    // `p`'s pits holding stones.
+    public int getSowableMask(Player p) { return nonEmptyMask & sideMask(p); }
+
+    // `p`'s playable pits: stones to sow or a power-up to activate (a power-up takes precedence when both).
+    public int getLegalMoveMask(Player p) { return (nonEmptyMask | powerUpMask) & sideMask(p); }
+
+    // Write the pits of `mask` into `out` in increasing order and return how many there are.
+    public static int toMoves(int mask, int[] out) {
+        int n = 0;
+        for (; mask != 0; mask &= mask - 1) out[n++] = Integer.numberOfTrailingZeros(mask);
+        return n;
     }
 
     // Protected pit API: set/remove a protected pit and its remaining turns.
     // Passing a negative pitIndex removes protection for the player.
     public void setProtectedPit(Player p, int pitIndex, int turns) {
-        if (pitIndex < 0) { protectedPit.remove(p); protectedPitTurns.remove(p); return; }
-        protectedPit.put(p, pitIndex);
-        protectedPitTurns.put(p, turns);
+        int i = p.getIndex();
+        protectedPit[i] = pitIndex < 0 ? -1 : pitIndex;
+        protectedPitTurns[i] = pitIndex < 0 ? 0 : turns;
     }
 
+    // PowerUpTarget view of setProtectedPit, by side (0 = A, 1 = B).
+    @Override
+    public void protectPit(int side, int pit, int turns) { setProtectedPit(playerOf(side), pit, turns); }
+
+    // The player with the given index (0 = A, 1 = B).
+    public Player playerOf(int index) { return index == 0 ? playerA : playerB; }
+
+    // PowerUpTarget access to pit stones.
+    @Override
+    public int stonesAt(int pit) { return board[pit].getStones(); }
+
+    @Override
+    public void setStonesAt(int pit, int stones) { board[pit].setStones(stones); }
+
     // Return the index of the protected pit for a player, or null if none.
-    public Integer getProtectedPit(Player p) { return protectedPit.get(p); }
+    public Integer getProtectedPit(Player p) {
+        int pit = protectedPit[p.getIndex()];
+        return pit < 0 ? null : pit;
+    }
+
+    // Same as getProtectedPit without boxing: the protected pit index, or -1 if none.
+    public int getProtectedPitIndex(Player p) { return protectedPit[p.getIndex()]; }
 
     // Return the remaining protection turns for the given player's protected pit.
-    public Integer getProtectedPitTurns(Player p) { return protectedPitTurns.getOrDefault(p, 0); }
+    public Integer getProtectedPitTurns(Player p) { return protectedPitTurns[p.getIndex()]; }
 
 
     // Active power-up API: attach/get/clear the currently active power-up for a player.
-    public void setActivePowerUp(Player p, sungka.powerups.PowerUp pu) { activePowerUp.put(p, pu); }
+    public void setActivePowerUp(Player p, PowerUp pu) { activePowerUp[p.getIndex()] = pu == null ? 0 : pu.getId(); }
 
-    public sungka.powerups.PowerUp getActivePowerUp(Player p) { return activePowerUp.get(p); }
+    public PowerUp getActivePowerUp(Player p) { return PowerUpManager.byId(activePowerUp[p.getIndex()]); }
 
-    public void clearActivePowerUp(Player p) { activePowerUp.remove(p); }
+    public void clearActivePowerUp(Player p) { activePowerUp[p.getIndex()] = 0; }
 
     // Return how many power-ups the player has used during the current turn.
-    public int getPowerUpsUsedThisTurn(Player p) { return powerUpsUsedThisTurn.getOrDefault(p, 0); }
+    public int getPowerUpsUsedThisTurn(Player p) { return powerUpsUsedThisTurn[p.getIndex()]; }
 
     // Increment the per-turn activation counter for a player. When the
     // activation budget is exceeded the player's side is cleared of power-ups.
     private void incrementPowerUpsUsed(Player p) {
-        int now = getPowerUpsUsedThisTurn(p) + 1;
-        powerUpsUsedThisTurn.put(p, now);
+        int now = ++powerUpsUsedThisTurn[p.getIndex()];
         // if limit reached, wipe all power-ups on player's side so they're forced to pick a pit
         if (now >= 2) {
             wipePowerUpsForPlayer(p);
         }
     }
 
+    // Overwrite the per-turn activation counter (used when restoring a saved position).
+    void setPowerUpsUsedThisTurn(Player p, int n) { powerUpsUsedThisTurn[p.getIndex()] = n; }
+
     // Reset the per-turn activation counter for the provided player.
-    private void resetPowerUpsUsed(Player p) { powerUpsUsedThisTurn.put(p, 0); }
+    private void resetPowerUpsUsed(Player p) { powerUpsUsedThisTurn[p.getIndex()] = 0; }
 
     // Wipe all power-ups on the given player's side immediately.
     public void wipePowerUpsForPlayer(Player p) {
         for (int i = p.getStart(); i <= p.getEnd(); i++) board[i].clearPowerUp();
-        log(p.getName() + " reached power-up limit: all power-ups on their side were wiped.");
+        emit(GameEvent.POWER_UPS_WIPED, p, 0, 0);
     }
     /*
     Utility methods
@@ -188,24 +311,19 @@ public final class SungkaGame {
         Pit startPit = board[pitIndex];
         if (!current.ownsPit(pitIndex) || startPit.isHouse() || startPit.getStones() == 0) return false;
 
+        recordPly(pitIndex);
         int stones = startPit.getStones();
         startPit.setStones(0);
 
-        int pos = pitIndex;
         boolean cc = reverseSowing; // if reversed, use backward sowing
         reverseSowing = false; // consume reverse flag when used
 
-        while (stones > 0) {
-            pos = cc ? (pos - 1 + 16) % 16 : (pos + 1) % 16;
-            Player opp = getOpponent(current);
-            if (pos == opp.getHouseIndex()) continue;
-            board[pos].addStone();
-            stones--;
-        }
+        // whole laps and the remainder in one pass over the receiving pits (skips the opponent's house)
+        int pos = Sowing.sow(board, current.getIndex(), cc, pitIndex, stones);
 
         if (pos == current.getHouseIndex()) {
             // landed in house — player keeps the turn (bonusTurn handled elsewhere)
-            log(current.getName() + " landed in house and gets another turn.");
+            emit(GameEvent.HOUSE_LANDING, current, 0, 0);
         } else {
                     if (current.ownsPit(pos) && !board[pos].isHouse() && board[pos].getStones() == 1) {
                         int oppPos = oppositeOf(pos);
@@ -213,11 +331,11 @@ public final class SungkaGame {
 
                         // If opponent protected this pit with PitShield, block the capture and remove protection
                         Player pitOwner = getOpponent(current);
-                        Integer prot = protectedPit.get(pitOwner);
-                        if (prot != null && prot.equals(oppPos)) {
-                            protectedPit.remove(pitOwner);
-                            protectedPitTurns.remove(pitOwner);
-                            log(pitOwner.getName() + "'s pit shield prevented a capture on pit " + oppPos + ".");
+                        int owner = pitOwner.getIndex();
+                        if (protectedPit[owner] == oppPos) {
+                            protectedPit[owner] = -1;
+                            protectedPitTurns[owner] = 0;
+                            emit(GameEvent.SHIELD_BLOCKED, pitOwner, oppPos, 0);
                         } else {
                             int captured = oppPit.getStones();
                             if (doubleCapture) captured *= 2;
@@ -226,33 +344,27 @@ public final class SungkaGame {
                             oppPit.setStones(0);
                             board[pos].setStones(0);
 
-                            log(current.getName() + " captured " + captured + " from pit " + oppPos + " (plus 1).");
+                            emit(GameEvent.CAPTURE, current, oppPos, captured);
 
                             if (oppPit.hasPowerUp()) {
                                 // when a power-up is captured, try to activate it immediately for the captor
-                                PowerUp capturedPU = oppPit.getPowerUp();
+                                byte capturedId = oppPit.getPowerUpId();
                                 oppPit.clearPowerUp();
                                 if (getPowerUpsUsedThisTurn(current) < 2) {
-                                    setActivePowerUp(current, capturedPU);
-                                    capturedPU.apply(this, current, pos);
+                                    activePowerUp[current.getIndex()] = capturedId;
+                                    PowerUpEffects.apply(capturedId, this, current.getIndex(), pos);
                                     incrementPowerUpsUsed(current);
-                                    log(current.getName() + " activated captured power-up " + capturedPU.getName() + ".");
+                                    emit(GameEvent.CAPTURED_POWER_UP_ACTIVATED, current, capturedId, 0);
                                 } else {
                                     // player's activation budget exhausted — place captured PU into a random empty pit on their side
-                                        Integer protCur = protectedPit.get(current);
-                                    List<Integer> empties = new ArrayList<>();
-                                        for (int i = current.getStart(); i <= current.getEnd(); i++) {
-                                            if (protCur != null && i == protCur) continue;
-                                        if (!board[i].hasPowerUp() && !board[i].isHouse()) empties.add(i);
-                                    }
-                                    if (!empties.isEmpty()) {
-                                        Collections.shuffle(empties, rnd);
-                                        int dest = empties.get(0);
-                                        board[dest].setPowerUp(capturedPU);
-                                        log(current.getName() + " captured a power-up but reached per-turn limit; stored in pit " + dest + ".");
+                                    int free = sideMask(current) & ~powerUpMask & ~protectedMask(current);
+                                    if (free != 0) {
+                                        int dest = pickBit(free);
+                                        board[dest].setPowerUpId(capturedId);
+                                        emit(GameEvent.CAPTURED_POWER_UP_STORED, current, dest, 0);
                                     } else {
                                         // nowhere to store — discard
-                                        log(current.getName() + " captured a power-up but has no space to store it; it is discarded.");
+                                        emit(GameEvent.CAPTURED_POWER_UP_DISCARDED, current, 0, 0);
                                     }
                                 }
                             }
@@ -273,16 +385,9 @@ public final class SungkaGame {
         if (startPit.isHouse() || startPit.getStones() == 0) return seq;
 
         int stones = startPit.getStones();
-        int pos = pitIndex;
         boolean cc = reverseSowing; // preview uses current reverse flag but does not consume it
-
-        while (stones > 0) {
-            pos = cc ? (pos - 1 + 16) % 16 : (pos + 1) % 16;
-            Player opp = getOpponent(current);
-            if (pos == opp.getHouseIndex()) continue;
-            seq.add(pos);
-            stones--;
-        }
+        int side = current.getIndex();
+        for (int k = 0; k < stones; k++) seq.add(Sowing.pitAt(side, cc, pitIndex, k));
         return seq;
     }
 
@@ -292,16 +397,17 @@ public final class SungkaGame {
         if (!current.ownsPit(pitIndex)) return false;
         Pit p = board[pitIndex];
         if (!p.hasPowerUp()) return false;
-        PowerUp pu = p.getPowerUp();
+        byte id = p.getPowerUpId();
         p.clearPowerUp();
+        recordPly(pitIndex | PLY_ACTIVATION);
         // Ensure leftover bonusTurn flags don't let unrelated power-ups keep the turn.
         bonusTurn = false;
         // enforce per-turn activation limit
         if (getPowerUpsUsedThisTurn(current) >= 2) {
-            log(current.getName() + " has already used maximum power-ups this turn.");
+            emit(GameEvent.ACTIVATION_LIMIT, current, 0, 0);
             return false;
         }
-        pu.apply(this, current, pitIndex);
+        PowerUpEffects.apply(id, this, current.getIndex(), pitIndex);
         incrementPowerUpsUsed(current);
         return true;
     }
@@ -322,16 +428,14 @@ public final class SungkaGame {
     private void endTurn() {
         if (bonusTurn) {
             bonusTurn = false;
-            log(current.getName() + " keeps turn due to BonusTurn.");
+            emit(GameEvent.BONUS_TURN_KEPT, current, 0, 0);
             refreshPowerUpsForPlayer(current, 3);
             return;
         }
         Player prev = current;
         if (skipOpponent) {
             skipOpponent = false;
-            current = getOpponent(current);
-            log(current.getName() + " was skipped.");
-            current = getOpponent(current);
+            emit(GameEvent.TURN_SKIPPED, getOpponent(current), 0, 0);
         } else {
             current = getOpponent(current);
         }
@@ -342,17 +446,11 @@ public final class SungkaGame {
             resetPowerUpsUsed(current);
         }
 
-        // decrement protected pit turns for all players
-        for (Player p : Arrays.asList(playerA, playerB)) {
-            int t = protectedPitTurns.getOrDefault(p, 0);
-            if (t > 0) {
-                t--;
-                if (t <= 0) {
-                    protectedPit.remove(p);
-                    protectedPitTurns.remove(p);
-                } else {
-                    protectedPitTurns.put(p, t);
-                }
+        // decrement protected pit turns for both players
+        for (int i = 0; i < 2; i++) {
+            if (protectedPitTurns[i] > 0 && --protectedPitTurns[i] <= 0) {
+                protectedPit[i] = -1;
+                protectedPitTurns[i] = 0;
             }
         }
     }
@@ -361,72 +459,260 @@ public final class SungkaGame {
     public void refreshPowerUpsForPlayer(Player player, int cap) {
         // clear current power-ups on player's side
         for (int i = player.getStart(); i <= player.getEnd(); i++) board[i].clearPowerUp();
+        // nothing to place: make no random draws (same as BoardState), so the move stays deterministic
+        if (pum.getAllowedMask() == 0) return;
 
         // place up to cap power-ups into non-house pits, skipping protected pit
-        Integer prot = protectedPit.get(player);
-        List<Integer> empties = new ArrayList<>();
-        for (int i = player.getStart(); i <= player.getEnd(); i++) {
-            if (prot != null && i == prot) continue;
-            if (!board[i].hasPowerUp()) empties.add(i);
+        int free = sideMask(player) & ~protectedMask(player);
+        for (int k = Math.min(cap, Integer.bitCount(free)); k > 0; k--) {
+            int pit = pickBit(free);
+            free &= ~(1 << pit);
+            board[pit].setPowerUpId(pum.randomId(rnd));
+        }
+    }
+
+    // Mask of `p`'s protected pit (0 if none).
+    private int protectedMask(Player p) {
+        int pit = protectedPit[p.getIndex()];
+        return pit < 0 ? 0 : 1 << pit;
+    }
+
+    // A uniformly random set bit of a non-zero mask.
+    private int pickBit(int mask) {
+        for (int r = rnd.nextInt(Integer.bitCount(mask)); r > 0; r--) mask &= mask - 1;
+        return Integer.numberOfTrailingZeros(mask);
+    }
+    /*
+    In-place search API. Each call pushes a snapshot of the mutable state
+    (stones and power-ups of all 16 pits, flags, shields, protected-pit timers,
+    per-turn counters and the side to move) onto a reusable undo stack and then
+    plays the move exactly like makeMove / activatePowerUpInPit. A frame is
+    pushed even when the move is rejected, so every call must be paired with
+    unmakeMove(). Random draws made by refills are not rewound.
+    */
+    public boolean makeMoveUndoable(int pitIndex) {
+        pushUndo();
+        return makeMove(pitIndex);
+    }
+
+    // Undoable counterpart of activatePowerUpInPit (see makeMoveUndoable).
+    public boolean activatePowerUpUndoable(int pitIndex) {
+        pushUndo();
+        return activatePowerUpInPit(pitIndex);
+    }
+
+    // Revert the most recent undoable move.
+    public void unmakeMove() {
+        if (undoDepth == 0) throw new IllegalStateException("No move to undo");
+        UndoFrame f = undoStack[--undoDepth];
+        for (int i = 0; i < 16; i++) {
+            Pit p = board[i];
+            p.setStones(f.stones[i]);
+            p.setPowerUpId(f.powerUps[i]);
+        }
+        doubleCapture = f.doubleCapture;
+        bonusTurn = f.bonusTurn;
+        reverseSowing = f.reverseSowing;
+        skipOpponent = f.skipOpponent;
+        for (int i = 0; i < 2; i++) {
+            shielded[i] = f.shielded[i];
+            protectedPit[i] = f.protectedPit[i];
+            protectedPitTurns[i] = f.protectedPitTurns[i];
+            activePowerUp[i] = f.activePowerUp[i];
+            powerUpsUsedThisTurn[i] = f.powerUpsUsedThisTurn[i];
+        }
+        current = f.current;
+        plyCount = f.plyCount;
+    }
+
+    /*
+    Zobrist hash of the position: pit stones and power-ups (kept incrementally
+    as pits change), side to move, the power-up flags, protected pits with
+    their timers and the per-turn activation counters.
+    */
+    public long zobristKey() {
+        return pitKey ^ Zobrist.state(current.getIndex(), doubleCapture, bonusTurn, reverseSowing, skipOpponent,
+                protectedPit[0], protectedPitTurns[0], powerUpsUsedThisTurn[0],
+                protectedPit[1], protectedPitTurns[1], powerUpsUsedThisTurn[1]);
+    }
+
+    // Observe all pits and compute the pit key and evaluation terms from scratch.
+    private void attachBoard() {
+        long k = 0L;
+        int ne = 0, pu = 0;
+        sideStones[0] = sideStones[1] = 0;
+        for (int i = 0; i < 16; i++) {
+            Pit p = board[i];
+            p.setObserver(i, tracker);
+            k ^= Zobrist.stones(i, p.getStones()) ^ Zobrist.powerUp(i, p.getPowerUpId());
+            if (p.getStones() != 0) ne |= 1 << i;
+            if (p.hasPowerUp()) pu |= 1 << i;
+            if ((i & 7) != 7) sideStones[i < 7 ? 1 : 0] += p.getStones();
+        }
+        pitKey = k;
+        nonEmptyMask = ne;
+        powerUpMask = pu;
+    }
+
+    // Stones in the small pits of `p`'s side (kept incrementally).
+    public int getSideStones(Player p) { return sideStones[p == playerA ? 0 : 1]; }
+
+    // Stones in `p`'s house.
+    public int getHouseStones(Player p) { return board[p.getHouseIndex()].getStones(); }
+
+    // Bit i set when pit i (houses included) holds stones.
+    public int getNonEmptyMask() { return nonEmptyMask; }
+
+    // Bit i set when pit i holds a power-up.
+    public int getPowerUpMask() { return powerUpMask; }
+
+    // Number of power-ups on `p`'s side.
+    public int getPowerUpCount(Player p) { return Integer.bitCount(powerUpMask & sideMask(p)); }
+
+    // Keeps the incremental pit key and evaluation terms in sync with every pit change (moves, power-up effects, undo).
+    private final class BoardTracker implements Pit.Observer {
+        @Override
+        public void stonesChanged(int index, int before, int after) {
+            pitKey ^= Zobrist.stones(index, before) ^ Zobrist.stones(index, after);
+            if (after == 0) nonEmptyMask &= ~(1 << index);
+            else nonEmptyMask |= 1 << index;
+            if ((index & 7) != 7) sideStones[index < 7 ? 1 : 0] += after - before;
+        }
+
+        @Override
+        public void powerUpChanged(int index, byte before, byte after) {
+            pitKey ^= Zobrist.powerUp(index, before) ^ Zobrist.powerUp(index, after);
+            if (after == 0) powerUpMask &= ~(1 << index);
+            else powerUpMask |= 1 << index;
+        }
+    }
+
+    // Number of plies played on this game (copies start with an empty history).
+    public int getPlyCount() { return plyCount; }
+
+    // The i-th ply: a pit index, with PLY_ACTIVATION set for power-up activations.
+    // Activations count even when rejected by the per-turn limit, since they still consume the power-up.
+    public int getPly(int i) {
+        if (i < 0 || i >= plyCount) throw new IndexOutOfBoundsException("ply " + i);
+        return plies[i];
+    }
+
+    private void recordPly(int ply) {
+        if (plyCount == plies.length) plies = Arrays.copyOf(plies, Math.max(64, plyCount * 2));
+        plies[plyCount++] = ply;
+        if (plyListener != null && undoDepth == 0) plyListener.onPly(ply);
+    }
+
+    // Number of moves that can currently be undone.
+    public int getUndoDepth() { return undoDepth; }
+
+    private void pushUndo() {
+        if (undoDepth == undoStack.length) {
+            undoStack = Arrays.copyOf(undoStack, Math.max(16, undoStack.length * 2));
+        }
+        UndoFrame f = undoStack[undoDepth];
+        if (f == null) f = undoStack[undoDepth] = new UndoFrame();
+        undoDepth++;
+        for (int i = 0; i < 16; i++) {
+            Pit p = board[i];
+            f.stones[i] = p.getStones();
+            f.powerUps[i] = p.getPowerUpId();
         }
-        Collections.shuffle(empties, rnd);
-        int toPlace = Math.min(cap, empties.size());
-        for (int k = 0; k < toPlace; k++) {
-            board[empties.get(k)].setPowerUp(pum.randomPowerUp());
+        f.doubleCapture = doubleCapture;
+        f.bonusTurn = bonusTurn;
+        f.reverseSowing = reverseSowing;
+        f.skipOpponent = skipOpponent;
+        for (int i = 0; i < 2; i++) {
+            f.shielded[i] = shielded[i];
+            f.protectedPit[i] = protectedPit[i];
+            f.protectedPitTurns[i] = protectedPitTurns[i];
+            f.activePowerUp[i] = activePowerUp[i];
+            f.powerUpsUsedThisTurn[i] = powerUpsUsedThisTurn[i];
         }
+        f.current = current;
+        f.plyCount = plyCount;
     }
+
+    // Snapshot of everything a move can change.
+    private static final class UndoFrame {
+        final int[] stones = new int[16];
+        final byte[] powerUps = new byte[16];
+        boolean doubleCapture, bonusTurn, reverseSowing, skipOpponent;
+        // per-player state, indexed like the game's arrays
+        final boolean[] shielded = new boolean[2];
+        final int[] protectedPit = new int[2];
+        final int[] protectedPitTurns = new int[2];
+        final byte[] activePowerUp = new byte[2];
+        final int[] powerUpsUsedThisTurn = new int[2];
+        Player current;
+        int plyCount;
+    }
+
     /*
     Create a fresh copy of the game for simulation. Note:
-    Pits are copied, but PowerUp instances are referenced (not deep-cloned).
-    PowerUpManager (`pum`) is shared between original and copy.
+    Pits are copied with their power-up ids (power-ups are shared, stateless instances).
+    PowerUpManager (`pum`) and the immutable Player objects are shared between
+    original and copy, so a Player from the original is valid in the copy.
+    The copy draws from a fork of this game's random stream, so playing it
+    never changes this game's later random choices.
     Logger is set to noop in copies to avoid noisy simulation logs.
+    Unlike `new SungkaGame()` this never touches GameConfig or refills power-ups.
     */
-    public SungkaGame copy() {
-        SungkaGame g2 = new SungkaGame();
+    public SungkaGame copy() { return new SungkaGame(this); }
+
+    // Copy constructor used by copy(): builds the board directly from `src`.
+    private SungkaGame(SungkaGame src) {
+        playerA = src.playerA;
+        playerB = src.playerB;
+        pum = src.pum;
+        seed = src.seed;
+        rnd = src.rnd.fork();
+        for (int i = 0; i < 16; i++) {
+            Pit p = src.board[i];
+            Pit np = new Pit(p.getStones(), p.isHouse());
+            np.setPowerUpId(p.getPowerUpId());
+            board[i] = np;
+        }
+        attachBoard();
+        src.copyStateInto(this);
+    }
 
-        // replace board with copied pits
-        g2.board = new Pit[16];
+    /*
+    Overwrite `target` with this game's position, reusing its Pit objects.
+    The target's undo stack is cleared and its logger left unchanged. When the
+    target has its own Player objects, state is mapped by side (A/B).
+    */
+    public void copyInto(SungkaGame target) {
         for (int i = 0; i < 16; i++) {
             Pit p = this.board[i];
-            Pit np = new Pit(p.getStones(), p.isHouse());
-            if (p.hasPowerUp()) np.setPowerUp(p.getPowerUp());
-            g2.board[i] = np;
+            Pit tp = target.board[i];
+            tp.setStones(p.getStones());
+            tp.setPowerUpId(p.getPowerUpId());
         }
+        target.pum = this.pum;
+        this.rnd.forkInto(target.rnd);
+        target.undoDepth = 0;
+        target.plyCount = 0;
+        copyStateInto(target);
+    }
 
-        // copy simple flags
+    // Copy flags, per-player state, threshold and side to move (not the board).
+    private void copyStateInto(SungkaGame g2) {
         g2.doubleCapture = this.doubleCapture;
         g2.bonusTurn = this.bonusTurn;
         g2.reverseSowing = this.reverseSowing;
         g2.skipOpponent = this.skipOpponent;
-
-        // copy win threshold and power-up manager reference
         g2.winThreshold = this.winThreshold;
-        g2.pum = this.pum;
 
-        // copy shielded mapping by matching players
-        g2.shielded.put(g2.playerA, this.shielded.getOrDefault(this.playerA, false));
-        g2.shielded.put(g2.playerB, this.shielded.getOrDefault(this.playerB, false));
-
-        // copy protected pit maps (map old players to new players)
-        if (this.protectedPit.containsKey(this.playerA)) g2.protectedPit.put(g2.playerA, this.protectedPit.get(this.playerA));
-        if (this.protectedPit.containsKey(this.playerB)) g2.protectedPit.put(g2.playerB, this.protectedPit.get(this.playerB));
-        if (this.protectedPitTurns.containsKey(this.playerA)) g2.protectedPitTurns.put(g2.playerA, this.protectedPitTurns.get(this.playerA));
-        if (this.protectedPitTurns.containsKey(this.playerB)) g2.protectedPitTurns.put(g2.playerB, this.protectedPitTurns.get(this.playerB));
-
-        // copy active power-ups mapping (map to new players)
-        if (this.activePowerUp.containsKey(this.playerA)) g2.activePowerUp.put(g2.playerA, this.activePowerUp.get(this.playerA));
-        if (this.activePowerUp.containsKey(this.playerB)) g2.activePowerUp.put(g2.playerB, this.activePowerUp.get(this.playerB));
-
-        // copy per-turn usage counters
-        g2.powerUpsUsedThisTurn.put(g2.playerA, this.powerUpsUsedThisTurn.getOrDefault(this.playerA, 0));
-        g2.powerUpsUsedThisTurn.put(g2.playerB, this.powerUpsUsedThisTurn.getOrDefault(this.playerB, 0));
-
-        // set current player reference to the clone's player objects
-        g2.current = (this.current == this.playerA) ? g2.playerA : g2.playerB;
-
-        // quiet logger for simulations
-        g2.setLogger((s) -> {});
+        // both games index players the same way (0 = A, 1 = B)
+        for (int i = 0; i < 2; i++) {
+            g2.shielded[i] = this.shielded[i];
+            g2.protectedPit[i] = this.protectedPit[i];
+            g2.protectedPitTurns[i] = this.protectedPitTurns[i];
+            g2.activePowerUp[i] = this.activePowerUp[i];
+            g2.powerUpsUsedThisTurn[i] = this.powerUpsUsedThisTurn[i];
+        }
 
-        return g2;
+        g2.current = g2.playerOf(this.current.getIndex());
     }
 }
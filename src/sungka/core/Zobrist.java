@@ -0,0 +1,73 @@
+package sungka.core;
+
+    // Zobrist hashing keys for SungkaGame positions. Pit contents are hashed per
+    // (pit, stones) and (pit, power-up id); the remaining state (side to move,
+    // power-up flags, protected pits and per-turn counters) has its own keys.
+    // Keys come from a fixed SplitMix64 sequence so hashes are stable across runs.
+public final class Zobrist {
+    // stone counts below this use the table, larger counts are hashed on the fly
+    private static final int TABLE_STONES = 128;
+
+    private static final long[][] STONES = new long[16][TABLE_STONES];
+    private static final long[][] POWER_UP = new long[16][11];
+    private static final long SIDE_B;
+    private static final long DOUBLE_CAPTURE, BONUS_TURN, REVERSE_SOWING, SKIP_OPPONENT;
+    // per side: protected pit index, remaining shield turns (capped at 3), used activations
+    private static final long[][] PROTECTED_PIT = new long[2][16];
+    private static final long[][] PROTECTED_TURNS = new long[2][4];
+    private static final long[][] USED = new long[2][3];
+
+    private static long seed = 0x5DEECE66DL;
+
+    static {
+        for (int p = 0; p < 16; p++) {
+            for (int n = 1; n < TABLE_STONES; n++) STONES[p][n] = next();
+            for (int id = 1; id < 11; id++) POWER_UP[p][id] = next();
+        }
+        SIDE_B = next();
+        DOUBLE_CAPTURE = next();
+        BONUS_TURN = next();
+        REVERSE_SOWING = next();
+        SKIP_OPPONENT = next();
+        for (int s = 0; s < 2; s++) {
+            for (int p = 0; p < 16; p++) PROTECTED_PIT[s][p] = next();
+            for (int t = 1; t < 4; t++) PROTECTED_TURNS[s][t] = next();
+            for (int u = 1; u < 3; u++) USED[s][u] = next();
+        }
+    }
+
+    private Zobrist() { }
+
+    private static long next() { return mix(seed += 0x9E3779B97F4A7C15L); }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    // Key for `n` stones in pit `pit` (0 for an empty pit).
+    public static long stones(int pit, int n) {
+        if (n < TABLE_STONES) return n <= 0 ? 0L : STONES[pit][n];
+        return mix(((long) pit << 32) ^ n ^ 0x2545F4914F6CDD1DL);
+    }
+
+    // Key for power-up id `id` in pit `pit` (0 for none).
+    public static long powerUp(int pit, int id) { return id <= 0 || id > 10 ? 0L : POWER_UP[pit][id]; }
+
+    // Key for everything that is not pit contents. `side` is 0 for A and 1 for B.
+    public static long state(int side, boolean doubleCapture, boolean bonusTurn, boolean reverseSowing, boolean skipOpponent,
+                             int protA, int turnsA, int usedA, int protB, int turnsB, int usedB) {
+        long k = side == 0 ? 0L : SIDE_B;
+        if (doubleCapture) k ^= DOUBLE_CAPTURE;
+        if (bonusTurn) k ^= BONUS_TURN;
+        if (reverseSowing) k ^= REVERSE_SOWING;
+        if (skipOpponent) k ^= SKIP_OPPONENT;
+        if (protA >= 0) k ^= PROTECTED_PIT[0][protA & 15] ^ PROTECTED_TURNS[0][clamp(turnsA, 3)];
+        if (protB >= 0) k ^= PROTECTED_PIT[1][protB & 15] ^ PROTECTED_TURNS[1][clamp(turnsB, 3)];
+        k ^= USED[0][clamp(usedA, 2)] ^ USED[1][clamp(usedB, 2)];
+        return k;
+    }
+
+    private static int clamp(int v, int max) { return v < 0 ? 0 : Math.min(v, max); }
+}
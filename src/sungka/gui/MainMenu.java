@@ -46,7 +46,7 @@ public final class MainMenu extends JFrame {
         // Difficulty selection for AI
         JPanel difficultyPanel = new JPanel(new FlowLayout(FlowLayout.CENTER,8,4));
         difficultyPanel.add(new JLabel("AI difficulty:"));
-        JComboBox<String> difficulty = new JComboBox<>(new String[]{"Easy","Medium","Hard"});
+        JComboBox<String> difficulty = new JComboBox<>(new String[]{"Easy","Medium","Hard","Expert"});
         difficulty.setSelectedIndex(1); // default Medium
         difficultyPanel.add(difficulty);
         difficultyPanel.setAlignmentX(Component.CENTER_ALIGNMENT);
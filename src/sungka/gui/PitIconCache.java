@@ -0,0 +1,104 @@
+package sungka.gui;
+
+import sungka.powerups.PowerUpManager;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.geom.Ellipse2D;
+import java.awt.image.BaseMultiResolutionImage;
+import java.awt.image.BufferedImage;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Bounded LRU cache of rendered pit icons, keyed by everything the picture
+// depends on: stones, power-up id, house or pit, icon size and display scale.
+// A board redraw (or an animation step) is then a few map lookups; an icon is
+// rasterized only the first time its state shows up. Icons are immutable and
+// may be shared by several boards. Swing thread only.
+final class PitIconCache {
+    // shared drawing resources
+    static final Color ICON_BG = new Color(245, 245, 245);
+    static final Color HOUSE_FILL = new Color(200, 220, 255);
+    static final Color PIT_FILL = new Color(255, 250, 200);
+    static final Color POWER_UP_FILL = new Color(220, 120, 180);
+    static final Font COUNT_FONT = new Font("SansSerif", Font.BOLD, 16);
+    static final Font CODE_FONT = new Font("SansSerif", Font.BOLD, 14);
+    private static final BasicStroke OUTLINE = new BasicStroke(2);
+
+    private final Map<Long, Icon> icons;
+
+    PitIconCache(int capacity) {
+        icons = new LinkedHashMap<Long, Icon>(capacity * 4 / 3 + 1, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Icon> eldest) { return size() > capacity; }
+        };
+    }
+
+    // Icon of a pit (or house) holding `stones` and power-up `powerUpId` (0 = none),
+    // `w` x `h` logical pixels, for a display with the given scale factor.
+    Icon get(int stones, byte powerUpId, boolean house, int w, int h, double scale) {
+        int pct = (int) Math.round(scale * 100);
+        long key = (stones & 0xFFFFL) | (long) (powerUpId & 0xFF) << 16 | (house ? 1L : 0L) << 24
+                | (long) (w & 0xFFF) << 25 | (long) (h & 0xFFF) << 37 | (long) (pct & 0x3FFF) << 49;
+        Icon icon = icons.get(key);
+        if (icon == null) {
+            icon = render(stones, powerUpId, house, w, h, pct);
+            icons.put(key, icon);
+        }
+        return icon;
+    }
+
+    // Size of the cache, for diagnostics.
+    int size() { return icons.size(); }
+
+    private static Icon render(int stones, byte powerUpId, boolean house, int w, int h, int pct) {
+        BufferedImage base = paint(stones, powerUpId, house, w, h, 1.0);
+        if (pct == 100) return new ImageIcon(base);
+        // HiDPI: Swing picks the variant matching the screen transform
+        return new ImageIcon(new BaseMultiResolutionImage(base, paint(stones, powerUpId, house, w, h, pct / 100.0)));
+    }
+
+    private static BufferedImage paint(int stones, byte powerUpId, boolean house, int w, int h, double scale) {
+        BufferedImage img = new BufferedImage((int) Math.ceil(w * scale), (int) Math.ceil(h * scale), BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = img.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g.scale(scale, scale);
+
+        // background
+        g.setColor(ICON_BG);
+        g.fillRect(0, 0, w, h);
+
+        // draw shell circle
+        int cx = 36, cy = h / 2, r = 26;
+        Ellipse2D circle = new Ellipse2D.Double(cx - r, cy - r, r * 2, r * 2);
+        g.setColor(house ? HOUSE_FILL : PIT_FILL);
+        g.fill(circle);
+        g.setColor(Color.DARK_GRAY);
+        g.setStroke(OUTLINE);
+        g.draw(circle);
+
+        // draw number inside circle
+        String s = String.valueOf(stones);
+        g.setFont(COUNT_FONT);
+        FontMetrics fm = g.getFontMetrics();
+        g.setColor(Color.BLACK);
+        g.drawString(s, cx - fm.stringWidth(s) / 2, cy + fm.getAscent() / 2 - 3);
+
+        // draw power-up small box on right if present
+        String code = PowerUpManager.codeOf(powerUpId);
+        if (code != null) {
+            int bx = w - 34, by = 12, bw = 28, bh = 28;
+            g.setColor(POWER_UP_FILL);
+            g.fillRoundRect(bx, by, bw, bh, 6, 6);
+            g.setColor(Color.WHITE);
+            g.setFont(CODE_FONT);
+            FontMetrics sfm = g.getFontMetrics();
+            g.drawString(code, bx + (bw - sfm.stringWidth(code)) / 2, by + (bh + sfm.getAscent()) / 2 - 3);
+        }
+
+        g.dispose();
+        return img;
+    }
+}
@@ -1,28 +1,40 @@
 package sungka.gui;
 
 import sungka.ai.SimpleAI;
+import sungka.core.GameRandom;
 import sungka.core.SungkaGame;
+import sungka.history.MatchHistory;
+import sungka.history.MatchRecord;
 import sungka.config.GameConfig;
 import sungka.model.Pit;
 import sungka.model.Player;
 import sungka.powerups.PowerUp;
+import sungka.powerups.PowerUpManager;
+import sungka.record.GameArchive;
+import sungka.record.GameRecord;
+import sungka.record.GameRecorder;
 
 import javax.swing.*;
 import javax.swing.border.LineBorder;
 import java.awt.*;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
-import java.awt.geom.Ellipse2D;
-import java.awt.image.BufferedImage;
-import java.io.FileWriter;
-import java.io.IOException;
-import java.text.SimpleDateFormat;
-import java.util.Date;
 import java.util.List;
 
 public final class SungkaGUI extends JFrame {
     private static final long serialVersionUID = 1L;
     private transient final SungkaGame game;
+    // pit icons are drawn once per distinct state and shared by all boards
+    private static final int ICON_W = 120, ICON_H = 60;
+    private static final PitIconCache ICONS = new PitIconCache(512);
+    // shared colours, fonts and borders, so redraws allocate none
+    private static final Color HOUSE_BG = new Color(220, 230, 255);
+    private static final Color POWER_UP_BG = new Color(200, 255, 230);
+    private static final Color SOW_FLASH = new Color(255, 230, 150);
+    private static final Font PIT_FONT = new Font("SansSerif", Font.BOLD, 14);
+    private static final LineBorder SHIELD_BORDER = new LineBorder(new Color(200, 60, 60), 3);
+    private static final Color NEAR_WIN = new Color(220, 80, 10);
+    private static final LineBorder NEAR_WIN_THIN = new LineBorder(NEAR_WIN, 1), NEAR_WIN_THICK = new LineBorder(NEAR_WIN, 3);
     private final JButton[] pitButtons = new JButton[16];
     private final JTextArea logArea = new JTextArea(6, 40);
     private boolean animating = false;
@@ -44,6 +56,11 @@ public final class SungkaGUI extends JFrame {
     private transient final Player aiPlayer; // which Player is controlled by AI, null if none
     private transient final SimpleAI ai;
     private final Timer aiTimer;
+    // for the match history: AI difficulty ordinal (MatchRecord.NONE without AI) and start time
+    private final int difficulty;
+    private final long startMillis = System.currentTimeMillis();
+    // captures the moves for the game-record archive
+    private transient final GameRecorder recorder;
     // status labels (top row empty slots)
     private JLabel directionLabel;
     private JLabel turnLabel;
@@ -60,19 +77,25 @@ public final class SungkaGUI extends JFrame {
         try { d = SimpleAI.Difficulty.valueOf(difficultyStr.toUpperCase()); }
         catch (Exception ex) { d = SimpleAI.Difficulty.MEDIUM; }
         this.ai = aiEnabled ? new SimpleAI(d) : null;
-        game = new SungkaGame();
+        this.difficulty = aiEnabled ? d.ordinal() : MatchRecord.NONE;
         // apply configuration (if provided) — fall back to central GameConfig when null/invalid
         java.util.Set<String> cfgPUs = enabledPowerUps;
         if (cfgPUs == null) cfgPUs = GameConfig.getInstance().getEnabledPowerUps();
-        if (cfgPUs != null) game.setAllowedPowerUps(cfgPUs);
         int cfgThresh = (winThreshold > 0) ? winThreshold : GameConfig.getInstance().getWinThreshold();
-        game.setWinThreshold(cfgThresh);
+        // configured before the initial power-ups are placed, so the game replays from its record
+        game = new SungkaGame(new GameRandom().nextLong(), PowerUpManager.maskOf(cfgPUs), cfgThresh);
         this.aiPlayer = aiEnabled ? (aiPlaysA ? game.playerA : game.playerB) : null;
-
-        game.setLogger((s) -> SwingUtilities.invokeLater(() -> {
-            logArea.append(s + "\n");
-            logArea.setCaretPosition(logArea.getDocument().getLength());
-        }));
+        int aiCtl = aiEnabled ? d.ordinal() : GameRecord.HUMAN;
+        recorder = GameRecorder.attach(game, aiPlaysA ? aiCtl : GameRecord.HUMAN, aiPlaysA ? GameRecord.HUMAN : aiCtl);
+
+        // events are formatted here, on the consumer side, and appended on the EDT
+        game.setEventListener((event, side, a, b) -> {
+            String s = event.format((side == 0 ? game.playerA : game.playerB).getName(), a, b);
+            SwingUtilities.invokeLater(() -> {
+                logArea.append(s + "\n");
+                logArea.setCaretPosition(logArea.getDocument().getLength());
+            });
+        });
 
         setTitle("Sungka with 10 Power-Ups");
         setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
@@ -87,7 +110,7 @@ public final class SungkaGUI extends JFrame {
         // top row: left = turn label, right = opponent house (pit 15)
         turnLabel = new JLabel("Turn: " + game.getCurrent().getName(), SwingConstants.CENTER);
         turnLabel.setPreferredSize(new Dimension(140,60));
-        turnLabel.setOpaque(true); turnLabel.setBackground(new Color(245,245,245));
+        turnLabel.setOpaque(true); turnLabel.setBackground(PitIconCache.ICON_BG);
         leftColumn.add(turnLabel);
         JButton houseTopRight = createPitButton(15);
         houseTopRight.setPreferredSize(new Dimension(140,60));
@@ -111,7 +134,7 @@ public final class SungkaGUI extends JFrame {
         leftColumn.add(houseLeft);
         directionLabel = new JLabel("Sow: " + (game.isReverseSowing() ? "←" : "→"), SwingConstants.CENTER);
         directionLabel.setPreferredSize(new Dimension(140,60));
-        directionLabel.setOpaque(true); directionLabel.setBackground(new Color(245,245,245));
+        directionLabel.setOpaque(true); directionLabel.setBackground(PitIconCache.ICON_BG);
         rightColumn.add(directionLabel);
 
         // Center: scoreboard, controls, log
@@ -179,6 +202,7 @@ public final class SungkaGUI extends JFrame {
         addWindowListener(new WindowAdapter() {
             @Override public void windowClosed(WindowEvent e) {
                 if (aiTimer != null) aiTimer.stop();
+                if (ai != null) ai.shutdown();
                 SwingUtilities.invokeLater(() -> new MainMenu().setVisible(true));
             }
         });
@@ -255,57 +279,18 @@ public final class SungkaGUI extends JFrame {
 
     
 
-    private Icon makePitIcon(int stones, PowerUp pu, boolean isHouse) {
-        int w = 120, h = 60;
-        BufferedImage img = new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB);
-        Graphics2D g = img.createGraphics();
-        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-
-        // background
-        g.setColor(new Color(245,245,245));
-        g.fillRect(0,0,w,h);
-
-        // draw shell circle
-        int cx = 36, cy = h/2, r = 26;
-        g.setColor(isHouse ? new Color(200,220,255) : new Color(255,250,200));
-        g.fill(new Ellipse2D.Double(cx-r, cy-r, r*2, r*2));
-        g.setColor(Color.DARK_GRAY);
-        g.setStroke(new BasicStroke(2));
-        g.draw(new Ellipse2D.Double(cx-r, cy-r, r*2, r*2));
-
-        // draw number inside circle
-        String s = String.valueOf(stones);
-        Font f = new Font("SansSerif", Font.BOLD, 16);
-        g.setFont(f);
-        FontMetrics fm = g.getFontMetrics(f);
-        int tx = cx - fm.stringWidth(s)/2;
-        int ty = cy + fm.getAscent()/2 - 3;
-        g.setColor(Color.BLACK);
-        g.drawString(s, tx, ty);
-
-        // draw power-up small box on right if present
-        if (pu != null) {
-            int bx = w - 34, by = 12, bw = 28, bh = 28;
-            g.setColor(new Color(220, 120, 180));
-            g.fillRoundRect(bx, by, bw, bh, 6, 6);
-            g.setColor(Color.WHITE);
-            String code = pu.getCode();
-            Font sf = new Font("SansSerif", Font.BOLD, 14);
-            g.setFont(sf);
-            FontMetrics sfm = g.getFontMetrics(sf);
-            int sx = bx + (bw - sfm.stringWidth(code))/2;
-            int sy = by + (bh + sfm.getAscent())/2 - 3;
-            g.drawString(code, sx, sy);
-        }
-
-        g.dispose();
-        return new ImageIcon(img);
+    // Cached icon for pit `i` showing `stones` shells (and the pit's current power-up).
+    private Icon pitIcon(int i, int stones) {
+        Pit p = game.board[i];
+        GraphicsConfiguration gc = getGraphicsConfiguration();
+        double scale = gc == null ? 1.0 : gc.getDefaultTransform().getScaleX();
+        return ICONS.get(stones, p.getPowerUpId(), p.isHouse(), ICON_W, ICON_H, scale);
     }
 
     private JButton createPitButton(int index) {
         JButton btn = new JButton();
         pitButtons[index] = btn;
-        btn.setFont(new Font("SansSerif", Font.BOLD, 14));
+        btn.setFont(PIT_FONT);
         btn.addActionListener(e -> handlePitClick(index));
         return btn;
     }
@@ -366,7 +351,7 @@ public final class SungkaGUI extends JFrame {
 
         // empty start pit visually
         display[startIdx] = 0;
-        pitButtons[startIdx].setText("0");
+        pitButtons[startIdx].setIcon(pitIcon(startIdx, 0));
 
         // disable buttons visually by setting cursor; clicks are ignored via animating flag
         Cursor oldCursor = getCursor();
@@ -378,9 +363,9 @@ public final class SungkaGUI extends JFrame {
             if (step[0] < seq.size()) {
                 int dest = seq.get(step[0]++);
                 display[dest]++;
-                pitButtons[dest].setText(String.valueOf(display[dest]));
+                pitButtons[dest].setIcon(pitIcon(dest, display[dest]));
                 // flash destination briefly
-                pitButtons[dest].setBackground(new Color(255, 230, 150));
+                pitButtons[dest].setBackground(SOW_FLASH);
             } else {
                 t.stop();
                 // small pause then apply actual game move and refresh board
@@ -403,26 +388,25 @@ public final class SungkaGUI extends JFrame {
     }
 
     private void updateBoard() {
+        // protected pits (from PitShield)
+        Integer protA = game.getProtectedPit(game.playerA);
+        Integer protB = game.getProtectedPit(game.playerB);
         for (int i = 0; i < 16; i++) {
             Pit p = game.board[i];
-            PowerUp pu = p.hasPowerUp() ? p.getPowerUp() : null;
-            Icon ic = makePitIcon(p.getStones(), pu, p.isHouse());
-            pitButtons[i].setIcon(ic);
+            // unchanged icons, colours and borders are the same instances, so Swing skips their repaint
+            pitButtons[i].setIcon(pitIcon(i, p.getStones()));
             pitButtons[i].setText("");
             if (i == game.playerA.getHouseIndex() || i == game.playerB.getHouseIndex()) {
-                pitButtons[i].setBackground(new Color(220, 230, 255));
+                pitButtons[i].setBackground(HOUSE_BG);
             } else if (game.getCurrent().ownsPit(i)) {
-                pitButtons[i].setBackground(new Color(255, 250, 200));
+                pitButtons[i].setBackground(PitIconCache.PIT_FILL);
             } else if (p.hasPowerUp()) {
-                pitButtons[i].setBackground(new Color(200, 255, 230));
+                pitButtons[i].setBackground(POWER_UP_BG);
             } else {
-                pitButtons[i].setBackground(new Color(245, 245, 245));
+                pitButtons[i].setBackground(PitIconCache.ICON_BG);
             }
-            // indicate protected pit (from PitShield)
-            Integer protA = game.getProtectedPit(game.playerA);
-            Integer protB = game.getProtectedPit(game.playerB);
             if ((protA != null && protA == i) || (protB != null && protB == i)) {
-                pitButtons[i].setBorder(new LineBorder(new Color(200,60,60), 3));
+                pitButtons[i].setBorder(SHIELD_BORDER);
             } else {
                 pitButtons[i].setBorder(UIManager.getBorder("Button.border"));
             }
@@ -436,7 +420,7 @@ public final class SungkaGUI extends JFrame {
         Player winner = game.checkForWinner();
         if (winner != null) {
             if (aiTimer != null) aiTimer.stop();
-            appendMatchHistory(winner.getName(), game.board[game.playerA.getHouseIndex()].getStones(), game.board[game.playerB.getHouseIndex()].getStones());
+            recordMatch(winner);
             JOptionPane.showMessageDialog(this, winner.getName() + " reached " + game.getWinThreshold() + " shells and wins!", "Game Over", JOptionPane.INFORMATION_MESSAGE);
             SwingUtilities.invokeLater(() -> new MainMenu().setVisible(true));
             dispose();
@@ -493,9 +477,9 @@ public final class SungkaGUI extends JFrame {
                 // toggle border for near players
                 javax.swing.border.Border aBorder = progressA.getBorder();
                 javax.swing.border.Border bBorder = progressB.getBorder();
-                if (aNear) progressA.setBorder(new LineBorder(new Color(220,80,10), (aBorder instanceof LineBorder && ((LineBorder)aBorder).getThickness() == 3) ? 1 : 3));
+                if (aNear) progressA.setBorder(aBorder == NEAR_WIN_THICK ? NEAR_WIN_THIN : NEAR_WIN_THICK);
                 else progressA.setBorder(UIManager.getBorder("ProgressBar.border"));
-                if (bNear) progressB.setBorder(new LineBorder(new Color(220,80,10), (bBorder instanceof LineBorder && ((LineBorder)bBorder).getThickness() == 3) ? 1 : 3));
+                if (bNear) progressB.setBorder(bBorder == NEAR_WIN_THICK ? NEAR_WIN_THIN : NEAR_WIN_THICK);
                 else progressB.setBorder(UIManager.getBorder("ProgressBar.border"));
             });
             pulseTimer.setRepeats(true);
@@ -511,14 +495,15 @@ public final class SungkaGUI extends JFrame {
         }
     }
 
-    private void appendMatchHistory(String winner, int aCount, int bCount) {
-        String file = "match_history.txt";
-        String ts = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date());
-        String line = ts + " | Winner: " + winner + " | A=" + aCount + " | B=" + bCount + System.lineSeparator();
-        try (FileWriter fw = new FileWriter(file, true)) {
-            fw.write(line);
-        } catch (IOException ioe) {
-            // ignore history write failures
-        }
+    // Queue the finished game for the binary match history and the game-record
+    // archive; both are written off the EDT.
+    private void recordMatch(Player winner) {
+        GameArchive.shared().append(recorder.finish());
+        MatchHistory history = MatchHistory.shared();
+        long now = System.currentTimeMillis();
+        history.append(new MatchRecord(now, (int) Math.min(Integer.MAX_VALUE, now - startMillis), game.getPlyCount(),
+                game.getAllowedPowerUpMask(), game.getWinThreshold(),
+                game.board[game.playerA.getHouseIndex()].getStones(), game.board[game.playerB.getHouseIndex()].getStones(),
+                winner.getIndex(), aiPlayer == null ? MatchRecord.NONE : aiPlayer.getIndex(), difficulty));
     }
 }
@@ -0,0 +1,400 @@
+package sungka.history;
+
+import sungka.ai.SimpleAI;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Consumer;
+
+ // Append-only binary match history in a directory of segment files.
+ // Each segment (history-000000.skh, ...) is an 8-byte header followed by
+ // fixed-size MatchRecords; once a segment holds `segmentRecords` records the
+ // next one is started. A small index (history.idx) keeps, per segment, its
+ // record count, time range and MatchStats, so overall and per-difficulty
+ // statistics come from the index alone and time-range queries only read the
+ // segments that straddle the range ends.
+ // append() just enqueues: a daemon writer thread drains the queue in batches,
+ // writes each batch with a single channel write and then replaces the index
+ // (temp file + atomic move). Before its first write the writer thread opens
+ // the directory: segments the index does not account for (a crash between
+ // data and index writes) are summarised again and a torn trailing record is
+ // cut off. Queries wait for that recovery; append() never does.
+public class MatchHistory implements AutoCloseable {
+    public static final String DEFAULT_DIR = "match_history";
+    public static final int DEFAULT_SEGMENT_RECORDS = 1 << 16;
+
+    static final int SEGMENT_MAGIC = 0x534B4D48; // "SKMH"
+    static final int INDEX_MAGIC = 0x534B4D49; // "SKMI"
+    static final int VERSION = 1;
+    static final int SEGMENT_HEADER = 8;
+    static final String INDEX_FILE = "history.idx";
+    // largest batch taken from the queue per write
+    private static final int BATCH = 256;
+    // queued by close() to stop the writer after everything before it
+    private static final MatchRecord END = new MatchRecord(0, 0, 0, 0, 0, 0, 0, MatchRecord.NONE, MatchRecord.NONE, MatchRecord.NONE);
+
+    private static volatile MatchHistory shared;
+
+    private final Path dir;
+    private final int segmentRecords;
+    private final BlockingQueue<MatchRecord> queue = new LinkedBlockingQueue<>();
+    private final Thread writer;
+    // summaries of all segments, the last one being appended to (guarded by this)
+    private final List<Segment> segments = new ArrayList<>();
+    // records accepted by append() and records written so far (guarded by this)
+    private long appended, written;
+    // set by the writer once the directory is opened and recovered; openError if that failed (guarded by this)
+    private boolean opened;
+    private IOException openError;
+    private volatile boolean closed;
+    // writer-thread state: channel of the last segment
+    private FileChannel out;
+
+    // Per-segment summary kept in the index.
+    private static final class Segment {
+        final int number;
+        int count;
+        long first = Long.MAX_VALUE, last = Long.MIN_VALUE;
+        MatchStats stats = new MatchStats();
+
+        Segment(int number) { this.number = number; }
+
+        void add(MatchRecord r) {
+            count++;
+            first = Math.min(first, r.timestamp);
+            last = Math.max(last, r.timestamp);
+            stats.add(r);
+        }
+    }
+
+    // Does no I/O: the writer thread creates and recovers the directory before its first write.
+    private MatchHistory(Path dir, int segmentRecords) {
+        this.dir = dir;
+        this.segmentRecords = segmentRecords;
+        writer = new Thread(this::writeLoop, "match-history-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    // Open (or create) a history directory, waiting until it is recovered.
+    public static MatchHistory open(Path dir) throws IOException { return open(dir, DEFAULT_SEGMENT_RECORDS); }
+
+    public static MatchHistory open(Path dir, int segmentRecords) throws IOException {
+        if (segmentRecords <= 0) throw new IllegalArgumentException("segmentRecords must be positive");
+        MatchHistory h = new MatchHistory(dir, segmentRecords);
+        IOException ex = h.awaitOpen();
+        if (ex != null) {
+            h.close();
+            throw ex;
+        }
+        return h;
+    }
+
+    // The history in DEFAULT_DIR of the working directory (flushed at JVM exit).
+    // Returns at once: opening and recovery happen on the writer thread, so this is
+    // safe to call from the event thread. If the directory cannot be opened, the
+    // error is reported on stderr and appended records are dropped.
+    public static MatchHistory shared() {
+        if (shared == null) {
+            synchronized (MatchHistory.class) {
+                if (shared == null) {
+                    MatchHistory h = new MatchHistory(Paths.get(DEFAULT_DIR), DEFAULT_SEGMENT_RECORDS);
+                    Runtime.getRuntime().addShutdownHook(new Thread(h::close, "match-history-close"));
+                    shared = h;
+                }
+            }
+        }
+        return shared;
+    }
+
+    // Wait until the writer has opened the directory; returns the failure, if any.
+    private synchronized IOException awaitOpen() {
+        try {
+            while (!opened) wait();
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+        return openError;
+    }
+
+    // Queue a record for writing; never blocks on I/O. Ignored after close().
+    public void append(MatchRecord r) {
+        if (closed) return;
+        synchronized (this) { appended++; }
+        queue.add(r);
+    }
+
+    // Wait until every record appended so far has been written (or dropped on an I/O error).
+    public void flush() throws InterruptedException {
+        synchronized (this) {
+            long target = appended;
+            while (written < target && writer.isAlive()) wait(100);
+        }
+    }
+
+    // Write out queued records and stop the writer.
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+        queue.add(END);
+        try {
+            writer.join();
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Totals over the whole history, from the index.
+    public synchronized MatchStats stats() {
+        awaitOpen();
+        MatchStats s = new MatchStats();
+        for (Segment seg : segments) s.merge(seg.stats);
+        return s;
+    }
+
+    // Totals over games with fromMillis <= timestamp < toMillis. Segments wholly
+    // inside the range use their summary; only boundary segments are read.
+    public MatchStats stats(long fromMillis, long toMillis) throws IOException {
+        MatchStats s = new MatchStats();
+        for (Segment seg : snapshot()) {
+            if (seg.count == 0 || seg.last < fromMillis || seg.first >= toMillis) continue;
+            if (seg.first >= fromMillis && seg.last < toMillis) { s.merge(seg.stats); continue; }
+            read(seg, r -> { if (r.timestamp >= fromMillis && r.timestamp < toMillis) s.add(r); });
+        }
+        return s;
+    }
+
+    // Number of records written.
+    public synchronized long size() {
+        awaitOpen();
+        long n = 0;
+        for (Segment seg : segments) n += seg.count;
+        return n;
+    }
+
+    // Visit every written record, oldest segment first.
+    public void scan(Consumer<MatchRecord> visitor) throws IOException {
+        for (Segment seg : snapshot()) read(seg, visitor);
+    }
+
+    // Copies of the segment summaries (the counts bound what readers may read).
+    private synchronized List<Segment> snapshot() {
+        awaitOpen();
+        List<Segment> copy = new ArrayList<>(segments.size());
+        for (Segment seg : segments) {
+            Segment c = new Segment(seg.number);
+            c.count = seg.count;
+            c.first = seg.first;
+            c.last = seg.last;
+            c.stats = new MatchStats();
+            c.stats.merge(seg.stats);
+            copy.add(c);
+        }
+        return copy;
+    }
+
+    private void read(Segment seg, Consumer<MatchRecord> visitor) throws IOException {
+        try (FileChannel ch = FileChannel.open(segmentFile(seg.number), StandardOpenOption.READ)) {
+            ByteBuffer b = ByteBuffer.allocate(MatchRecord.SIZE * BATCH);
+            long pos = SEGMENT_HEADER, end = SEGMENT_HEADER + (long) seg.count * MatchRecord.SIZE;
+            while (pos < end) {
+                b.clear().limit((int) Math.min(b.capacity(), end - pos));
+                while (b.hasRemaining()) {
+                    if (ch.read(b, pos + b.position()) < 0) throw new IOException("truncated segment " + seg.number);
+                }
+                pos += b.flip().remaining();
+                while (b.hasRemaining()) visitor.accept(MatchRecord.decode(b));
+            }
+        }
+    }
+
+    private Path segmentFile(int number) { return dir.resolve(String.format("history-%06d.skh", number)); }
+
+    // ---- writer thread ----
+
+    private void writeLoop() {
+        IOException failure = null;
+        try {
+            Files.createDirectories(dir);
+            recover();
+        } catch (IOException ex) {
+            failure = ex;
+            System.err.println("Match history disabled: " + ex.getMessage());
+        }
+        synchronized (this) {
+            openError = failure;
+            opened = true;
+            notifyAll();
+        }
+        List<MatchRecord> batch = new ArrayList<>(BATCH);
+        boolean running = true;
+        try {
+            while (running) {
+                batch.clear();
+                batch.add(queue.take());
+                queue.drainTo(batch, BATCH - 1);
+                int end = batch.indexOf(END);
+                if (end >= 0) {
+                    running = false;
+                    // records queued after END (raced with close) are still written
+                    batch.remove(end);
+                    queue.drainTo(batch);
+                }
+                try {
+                    // without a usable directory, records are only counted so flush() returns
+                    if (failure == null && !batch.isEmpty()) writeBatch(batch);
+                } catch (IOException ex) {
+                    System.err.println("Match history write failed: " + ex.getMessage());
+                }
+                synchronized (this) {
+                    written += batch.size();
+                    notifyAll();
+                }
+            }
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        } finally {
+            try {
+                if (out != null) out.close();
+            } catch (IOException ignored) {
+                // nothing left to write
+            }
+        }
+    }
+
+    private void writeBatch(List<MatchRecord> batch) throws IOException {
+        int i = 0;
+        while (i < batch.size()) {
+            Segment seg = currentSegment();
+            int n = Math.min(segmentRecords - seg.count, batch.size() - i);
+            ByteBuffer b = ByteBuffer.allocate(n * MatchRecord.SIZE);
+            for (int k = 0; k < n; k++) batch.get(i + k).encode(b);
+            b.flip();
+            long pos = SEGMENT_HEADER + (long) seg.count * MatchRecord.SIZE;
+            while (b.hasRemaining()) pos += out.write(b, pos);
+            synchronized (this) {
+                for (int k = 0; k < n; k++) seg.add(batch.get(i + k));
+            }
+            i += n;
+        }
+        writeIndex();
+    }
+
+    // The segment to append to, starting a new one when the last is full.
+    private Segment currentSegment() throws IOException {
+        Segment last;
+        synchronized (this) { last = segments.isEmpty() ? null : segments.get(segments.size() - 1); }
+        if (last != null && last.count < segmentRecords) {
+            if (out == null) out = FileChannel.open(segmentFile(last.number), StandardOpenOption.WRITE);
+            return last;
+        }
+        Segment seg = new Segment(last == null ? 0 : last.number + 1);
+        if (out != null) out.close();
+        out = FileChannel.open(segmentFile(seg.number), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        ByteBuffer h = ByteBuffer.allocate(SEGMENT_HEADER).putInt(SEGMENT_MAGIC).putInt(VERSION);
+        h.flip();
+        while (h.hasRemaining()) out.write(h, h.position());
+        synchronized (this) { segments.add(seg); }
+        return seg;
+    }
+
+    private void writeIndex() throws IOException {
+        ByteBuffer b;
+        synchronized (this) {
+            b = ByteBuffer.allocate(12 + segments.size() * (24 + MatchStats.ENCODED_SIZE));
+            b.putInt(INDEX_MAGIC).putInt(VERSION).putInt(segments.size());
+            for (Segment seg : segments) {
+                b.putInt(seg.number).putInt(seg.count).putLong(seg.first).putLong(seg.last);
+                seg.stats.encode(b);
+            }
+        }
+        b.flip();
+        Path tmp = dir.resolve(INDEX_FILE + ".tmp");
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (b.hasRemaining()) ch.write(b);
+        }
+        Files.move(tmp, dir.resolve(INDEX_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // ---- recovery ----
+
+    // Load the index and reconcile it with the segment files on disk.
+    private void recover() throws IOException {
+        List<Segment> indexed = readIndex();
+        boolean dirty = false;
+        for (int number = 0; ; number++) {
+            Path file = segmentFile(number);
+            if (!Files.isRegularFile(file)) break;
+            long size = Files.size(file);
+            int count = (int) Math.max(0, (size - SEGMENT_HEADER) / MatchRecord.SIZE);
+            long exact = SEGMENT_HEADER + (long) count * MatchRecord.SIZE;
+            if (size != exact) {
+                // torn write: drop the partial record
+                try (FileChannel ch = FileChannel.open(file, StandardOpenOption.WRITE)) { ch.truncate(exact); }
+            }
+            Segment seg = number < indexed.size() ? indexed.get(number) : null;
+            if (seg == null || seg.count != count) {
+                seg = new Segment(number);
+                seg.count = count;
+                Segment summary = new Segment(number);
+                read(seg, summary::add);
+                seg = summary;
+                dirty = true;
+            }
+            segments.add(seg);
+        }
+        if (dirty || segments.size() != indexed.size()) writeIndex();
+    }
+
+    private List<Segment> readIndex() throws IOException {
+        List<Segment> out = new ArrayList<>();
+        Path file = dir.resolve(INDEX_FILE);
+        if (!Files.isRegularFile(file)) return out;
+        ByteBuffer b = ByteBuffer.wrap(Files.readAllBytes(file));
+        if (b.remaining() < 12 || b.getInt() != INDEX_MAGIC || b.getInt() != VERSION) return out;
+        int n = b.getInt();
+        // a size mismatch (e.g. the number of difficulties changed) rebuilds the summaries from the segments
+        if (n < 0 || b.remaining() != (long) n * (24 + MatchStats.ENCODED_SIZE)) return out;
+        for (int i = 0; i < n; i++) {
+            Segment seg = new Segment(b.getInt());
+            seg.count = b.getInt();
+            seg.first = b.getLong();
+            seg.last = b.getLong();
+            seg.stats = MatchStats.decode(b);
+            // entries must be numbered 0..n-1; otherwise rebuild from the segments
+            if (seg.number != i) return new ArrayList<>();
+            out.add(seg);
+        }
+        return out;
+    }
+
+    // Print per-difficulty statistics of a history directory.
+    // Usage: MatchHistory [dir]
+    public static void main(String[] args) throws IOException {
+        Path dir = Paths.get(args.length > 0 ? args[0] : DEFAULT_DIR);
+        try (MatchHistory h = open(dir)) {
+            MatchStats s = h.stats();
+            System.out.printf("%,d games in %s%n", s.games(), dir);
+            SimpleAI.Difficulty[] levels = SimpleAI.Difficulty.values();
+            for (int d = MatchRecord.NONE; d < levels.length; d++) {
+                long games = s.games(d);
+                if (games == 0) continue;
+                System.out.printf("%-15s %,8d games | A %,d  B %,d | human win rate %s | avg plies %.1f | avg %.0f s%n",
+                        d == MatchRecord.NONE ? "Human vs human" : levels[d].name(), games, s.winsA(d), s.winsB(d),
+                        d == MatchRecord.NONE ? "-" : String.format("%.1f%%", 100 * s.humanWinRate(d)),
+                        s.averagePlies(d), s.averageDurationMillis(d) / 1000);
+            }
+        }
+    }
+}
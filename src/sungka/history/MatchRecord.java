@@ -0,0 +1,63 @@
+package sungka.history;
+
+import java.nio.ByteBuffer;
+
+ // One finished (or abandoned) game in the match history: a fixed-size
+ // 32-byte record, so segments can be read by offset and scanned without parsing.
+ // Layout: timestamp (ms since epoch), duration (ms), plies, enabled power-up
+ // mask, win threshold, final house of A and B, winner, AI side, AI difficulty,
+ // then 3 reserved bytes.
+public final class MatchRecord {
+    public static final int SIZE = 32;
+    // winner / aiSide value when there is none
+    public static final int NONE = -1;
+
+    public final long timestamp;
+    public final int durationMillis;
+    public final int plies;
+    // bit (1 << id) per enabled power-up id (see PowerUpManager.idOf)
+    public final int powerUpMask;
+    public final int winThreshold;
+    public final int scoreA, scoreB;
+    // 0 = A, 1 = B, NONE = no winner
+    public final int winner;
+    // side played by the AI (0 = A, 1 = B) or NONE for two human players
+    public final int aiSide;
+    // SimpleAI.Difficulty ordinal, or NONE without an AI
+    public final int difficulty;
+
+    public MatchRecord(long timestamp, int durationMillis, int plies, int powerUpMask, int winThreshold,
+                       int scoreA, int scoreB, int winner, int aiSide, int difficulty) {
+        this.timestamp = timestamp;
+        this.durationMillis = durationMillis;
+        this.plies = plies;
+        this.powerUpMask = powerUpMask;
+        this.winThreshold = winThreshold;
+        this.scoreA = scoreA;
+        this.scoreB = scoreB;
+        this.winner = winner;
+        this.aiSide = aiSide;
+        this.difficulty = aiSide == NONE ? NONE : difficulty;
+    }
+
+    // Whether the AI (if any) won this game.
+    public boolean aiWon() { return aiSide != NONE && winner == aiSide; }
+
+    // Write the 32-byte record at the buffer's position.
+    public void encode(ByteBuffer b) {
+        b.putLong(timestamp).putInt(durationMillis).putInt(plies).putInt(powerUpMask)
+                .putShort((short) winThreshold).putShort((short) scoreA).putShort((short) scoreB)
+                .put((byte) winner).put((byte) aiSide).put((byte) difficulty)
+                .put((byte) 0).put((byte) 0).put((byte) 0);
+    }
+
+    // Read a record written by encode().
+    public static MatchRecord decode(ByteBuffer b) {
+        long ts = b.getLong();
+        int duration = b.getInt(), plies = b.getInt(), mask = b.getInt();
+        int threshold = b.getShort(), a = b.getShort(), bScore = b.getShort();
+        int winner = b.get(), aiSide = b.get(), difficulty = b.get();
+        b.position(b.position() + 3);
+        return new MatchRecord(ts, duration, plies, mask, threshold, a, bScore, winner, aiSide, difficulty);
+    }
+}
@@ -0,0 +1,88 @@
+package sungka.history;
+
+import sungka.ai.SimpleAI;
+
+import java.nio.ByteBuffer;
+
+ // Additive totals over match records, bucketed by opponent: bucket 0 holds
+ // games between two humans, bucket d + 1 games against AI difficulty d.
+ // MatchHistory keeps one of these per segment in its index, so statistics
+ // over the whole history are a sum of a few small summaries.
+public final class MatchStats {
+    // no AI + one per SimpleAI difficulty
+    public static final int BUCKETS = 1 + SimpleAI.Difficulty.values().length;
+    static final int FIELDS = 6;
+    static final int ENCODED_SIZE = BUCKETS * FIELDS * 8;
+
+    private final long[] games = new long[BUCKETS];
+    private final long[] winsA = new long[BUCKETS];
+    private final long[] winsB = new long[BUCKETS];
+    private final long[] aiWins = new long[BUCKETS];
+    private final long[] plies = new long[BUCKETS];
+    private final long[] durationMillis = new long[BUCKETS];
+
+    static int bucketOf(int difficulty) { return difficulty < 0 || difficulty >= BUCKETS - 1 ? 0 : difficulty + 1; }
+
+    public void add(MatchRecord r) {
+        int k = bucketOf(r.difficulty);
+        games[k]++;
+        if (r.winner == 0) winsA[k]++;
+        else if (r.winner == 1) winsB[k]++;
+        if (r.aiWon()) aiWins[k]++;
+        plies[k] += r.plies;
+        durationMillis[k] += r.durationMillis;
+    }
+
+    public void merge(MatchStats o) {
+        for (int k = 0; k < BUCKETS; k++) {
+            games[k] += o.games[k];
+            winsA[k] += o.winsA[k];
+            winsB[k] += o.winsB[k];
+            aiWins[k] += o.aiWins[k];
+            plies[k] += o.plies[k];
+            durationMillis[k] += o.durationMillis[k];
+        }
+    }
+
+    public long games() {
+        long n = 0;
+        for (long g : games) n += g;
+        return n;
+    }
+
+    // Games against the given difficulty (MatchRecord.NONE = human vs human).
+    public long games(int difficulty) { return games[bucketOf(difficulty)]; }
+
+    public long winsA(int difficulty) { return winsA[bucketOf(difficulty)]; }
+
+    public long winsB(int difficulty) { return winsB[bucketOf(difficulty)]; }
+
+    // Fraction of decided games against the given difficulty won by the human (NaN when there are none).
+    public double humanWinRate(int difficulty) {
+        int k = bucketOf(difficulty);
+        long decided = winsA[k] + winsB[k];
+        return decided == 0 ? Double.NaN : (decided - aiWins[k]) / (double) decided;
+    }
+
+    public double averagePlies(int difficulty) {
+        int k = bucketOf(difficulty);
+        return games[k] == 0 ? Double.NaN : plies[k] / (double) games[k];
+    }
+
+    public double averageDurationMillis(int difficulty) {
+        int k = bucketOf(difficulty);
+        return games[k] == 0 ? Double.NaN : durationMillis[k] / (double) games[k];
+    }
+
+    void encode(ByteBuffer b) {
+        for (long[] f : fields()) for (long v : f) b.putLong(v);
+    }
+
+    static MatchStats decode(ByteBuffer b) {
+        MatchStats s = new MatchStats();
+        for (long[] f : s.fields()) for (int k = 0; k < BUCKETS; k++) f[k] = b.getLong();
+        return s;
+    }
+
+    private long[][] fields() { return new long[][] { games, winsA, winsB, aiWins, plies, durationMillis }; }
+}
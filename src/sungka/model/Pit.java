@@ -1,24 +1,46 @@
 package sungka.model;
 
 import sungka.powerups.PowerUp;
+import sungka.powerups.PowerUpManager;
 
 public class Pit {
     private int stones;
     private final boolean house;
-    private PowerUp powerUp;
+    // compact power-up id (PowerUpManager.idOf), 0 = none
+    private byte powerUpId;
+    // optional change observer (installed by the owning game for incremental bookkeeping)
+    private Observer observer;
+    private int index = -1;
 
     public Pit(int stones, boolean house) {
         this.stones = stones;
         this.house = house;
-        this.powerUp = null;
     }
     public int getStones() { return stones; }
-    public void setStones(int s) { stones = s; }
-    public void addStone() { stones++; }
+    public void setStones(int s) {
+        if (observer != null && s != stones) observer.stonesChanged(index, stones, s);
+        stones = s;
+    }
+    public void addStone() { setStones(stones + 1); }
     public boolean isHouse() { return house; }
 
-    public boolean hasPowerUp() { return powerUp != null; }
-    public PowerUp getPowerUp() { return powerUp; }
-    public void setPowerUp(PowerUp p) { powerUp = p; }
-    public void clearPowerUp() { powerUp = null; }
+    public boolean hasPowerUp() { return powerUpId != 0; }
+    // The shared instance for this pit's power-up, or null.
+    public PowerUp getPowerUp() { return PowerUpManager.byId(powerUpId); }
+    public void setPowerUp(PowerUp p) { setPowerUpId(p == null ? 0 : p.getId()); }
+    public byte getPowerUpId() { return powerUpId; }
+    public void setPowerUpId(byte id) {
+        if (observer != null && id != powerUpId) observer.powerUpChanged(index, powerUpId, id);
+        powerUpId = id;
+    }
+    public void clearPowerUp() { setPowerUpId((byte) 0); }
+
+    // Attach an observer notified of every change to this pit (null detaches).
+    public void setObserver(int index, Observer o) { this.index = index; this.observer = o; }
+
+    // Receives pit changes; `index` is the board index given to setObserver.
+    public interface Observer {
+        void stonesChanged(int index, int before, int after);
+        void powerUpChanged(int index, byte before, byte after);
+    }
 }
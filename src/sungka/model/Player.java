@@ -3,16 +3,20 @@ package sungka.model;
 public class Player {
     private final String name;
     private final int start, end, houseIndex;
+    // 0 for player A, 1 for player B; indexes per-player state arrays
+    private final int index;
 
-    public Player(String name, int start, int end, int houseIndex) {
+    public Player(String name, int start, int end, int houseIndex, int index) {
         this.name = name;
         this.start = start;
         this.end = end;
         this.houseIndex = houseIndex;
+        this.index = index;
     }
     public String getName() { return name; }
     public int getStart() { return start; }
     public int getEnd() { return end; }
     public int getHouseIndex() { return houseIndex; }
+    public int getIndex() { return index; }
     public boolean ownsPit(int idx) { return idx >= start && idx <= end; }
 }
@@ -3,18 +3,27 @@ package sungka.powerups;
 import sungka.core.SungkaGame;
 import sungka.model.Player;
 
+// Descriptor of a power-up kind. Power-ups are stateless: PowerUpManager keeps
+// one shared instance per kind, pits store only the compact id, and the effect
+// itself lives in the PowerUpEffects table.
 public abstract class PowerUp {
     protected final String name;
     protected final String code; // single-letter indicator for UI
     protected final String description;
+    private final byte id;
 
     public PowerUp(String name, String code, String description) {
         this.name = name; this.code = code; this.description = description;
+        this.id = PowerUpManager.idOf(code);
     }
     public String getName() { return name; }
     public String getCode() { return code; }
     public String getDescription() { return description; }
+    // compact id (see PowerUpManager.idOf)
+    public byte getId() { return id; }
 
     // pitIndex is the pit where the power-up was activated (may be -1 if not tied to a pit)
-    public abstract void apply(SungkaGame game, Player player, int pitIndex);
+    public final void apply(SungkaGame game, Player player, int pitIndex) {
+        PowerUpEffects.apply(id, game, player == game.playerA ? 0 : 1, pitIndex);
+    }
 }
@@ -0,0 +1,81 @@
+package sungka.powerups;
+
+import sungka.core.GameEvent;
+import sungka.core.SungkaGame;
+
+// Effect table for all power-ups, keyed by compact id (PowerUpManager.idOf).
+// Power-ups carry no state, so every effect is a plain function of the target,
+// the activating side (0 = A, 1 = B) and the activated pit (-1 when untargeted).
+// A static switch keeps activation free of allocation and virtual dispatch.
+public final class PowerUpEffects {
+    private PowerUpEffects() { }
+
+    private static int houseOf(int side) { return side == 0 ? 15 : 7; }
+
+    // Execute the effect of power-up `id` for `side`, targeting `pit` where relevant.
+    public static void apply(byte id, PowerUpTarget t, int side, int pit) {
+        switch (id) {
+            case PowerUpManager.DOUBLE_CAPTURE:
+                t.setDoubleCapture(true);
+                t.emit(GameEvent.DOUBLE_CAPTURE, side, 0, 0);
+                break;
+            case PowerUpManager.BONUS_TURN:
+                t.setBonusTurn(true);
+                t.emit(GameEvent.BONUS_TURN, side, 0, 0);
+                break;
+            case PowerUpManager.REVERSE_SOWING:
+                t.setReverseSowing(true);
+                t.emit(GameEvent.REVERSE_SOWING, side, 0, 0);
+                break;
+            case PowerUpManager.SKIP_OPPONENT:
+                t.setSkipOpponent(true);
+                t.emit(GameEvent.SKIP_OPPONENT, side, 0, 0);
+                break;
+            case PowerUpManager.SHELL_MAGNET: {
+                if (pit < 0) { t.emit(GameEvent.NEEDS_TARGET, side, id, 0); break; }
+                // up to 2 shells, from the left neighbour first (neighbours may be houses)
+                int left = SungkaGame.leftOf(pit), right = SungkaGame.rightOf(pit);
+                int take = Math.min(2, t.stonesAt(left));
+                t.setStonesAt(left, t.stonesAt(left) - take);
+                int pulled = take;
+                take = Math.min(2 - pulled, t.stonesAt(right));
+                t.setStonesAt(right, t.stonesAt(right) - take);
+                pulled += take;
+                t.setStonesAt(pit, t.stonesAt(pit) + pulled);
+                t.emit(GameEvent.SHELL_MAGNET, side, pit, pulled);
+                break;
+            }
+            case PowerUpManager.STEAL_SHELLS: {
+                int mine = houseOf(side), theirs = houseOf(1 - side);
+                int steal = Math.min(3, t.stonesAt(theirs));
+                t.setStonesAt(theirs, t.stonesAt(theirs) - steal);
+                t.setStonesAt(mine, t.stonesAt(mine) + steal);
+                t.emit(GameEvent.STEAL_SHELLS, side, steal, 0);
+                break;
+            }
+            case PowerUpManager.PIT_SHIELD:
+                if (pit < 0) { t.emit(GameEvent.NEEDS_TARGET, side, id, 0); break; }
+                t.protectPit(side, pit, 2);
+                t.emit(GameEvent.PIT_SHIELD, side, pit, 2);
+                break;
+            case PowerUpManager.ADD_SHELLS:
+                if (pit < 0) { t.emit(GameEvent.NEEDS_TARGET, side, id, 0); break; }
+                t.setStonesAt(pit, t.stonesAt(pit) + 3);
+                t.emit(GameEvent.ADD_SHELLS, side, pit, 3);
+                break;
+            case PowerUpManager.SWAP_HOUSES: {
+                int a = t.stonesAt(15);
+                t.setStonesAt(15, t.stonesAt(7));
+                t.setStonesAt(7, a);
+                t.emit(GameEvent.SWAP_HOUSES, side, 0, 0);
+                break;
+            }
+            case PowerUpManager.LUCKY_DROP:
+                t.setStonesAt(houseOf(side), t.stonesAt(houseOf(side)) + 5);
+                t.emit(GameEvent.LUCKY_DROP, side, 5, 0);
+                break;
+            default:
+                break;
+        }
+    }
+}
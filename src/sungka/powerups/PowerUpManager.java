@@ -1,85 +1,136 @@
 package sungka.powerups;
 
+import sungka.core.GameRandom;
 import sungka.model.Player;
 import sungka.model.Pit;
 
 import java.util.*;
-import java.util.function.Supplier;
 
-public class PowerUpManager {
-    private final List<Supplier<PowerUp>> pool = new ArrayList<>();
-    private final Random rnd = new Random();
+public final class PowerUpManager {
+    // enabled power-up ids drawn from on refill
+    private byte[] pool = new byte[0];
+    // bit (1 << id) set for every enabled power-up id (see idOf)
+    private int allowedMask;
+    // Holds no random state: callers pass their game's GameRandom, so one manager
+    // can be shared by a game and all of its copies.
     public PowerUpManager() {
-        // by default enable all registered codes: populate pool from registry directly
-        pool.addAll(REGISTRY.values());
+        // by default enable all registered codes
+        setAllowedCodes(null);
     }
 
-    public PowerUp randomPowerUp() {
-        if (pool.isEmpty()) return null;
-        Supplier<PowerUp> sup = pool.get(rnd.nextInt(pool.size()));
-        return sup.get();
-    }
+    // A random enabled power-up (shared instance), or null if none are enabled.
+    public PowerUp randomPowerUp(GameRandom rnd) { return byId(randomId(rnd)); }
+
+    // Id of a random enabled power-up, or 0 if none are enabled.
+    public byte randomId(GameRandom rnd) { return pool.length == 0 ? 0 : pool[rnd.nextInt(pool.length)]; }
 
-    public void refillToCap(Player player, Pit[] board, int cap) {
-        List<Integer> empties = new ArrayList<>();
+    // Fill `player`'s pits without a power-up at random until the side holds `cap`
+    // of them. Picks from a free-pit mask like SungkaGame's refill (no allocation);
+    // makes no random draws when no power-ups are enabled.
+    public void refillToCap(Player player, Pit[] board, int cap, GameRandom rnd) {
+        if (pool.length == 0) return;
+        int free = 0, current = 0;
         for (int i = player.getStart(); i <= player.getEnd(); i++) {
-            if (!board[i].hasPowerUp()) empties.add(i);
+            if (board[i].hasPowerUp()) current++;
+            else free |= 1 << i;
         }
-        Collections.shuffle(empties, rnd);
-
-        int current = 0;
-        for (int i = player.getStart(); i <= player.getEnd(); i++) if (board[i].hasPowerUp()) current++;
-        int need = cap - current;
-        for (int k = 0; k < need && k < empties.size(); k++) {
-            PowerUp p = randomPowerUp();
-            if (p != null) board[empties.get(k)].setPowerUp(p);
+        for (int k = Math.min(cap - current, Integer.bitCount(free)); k > 0; k--) {
+            int r = rnd.nextInt(Integer.bitCount(free));
+            int bits = free;
+            while (r-- > 0) bits &= bits - 1;
+            int pit = Integer.numberOfTrailingZeros(bits);
+            free &= ~(1 << pit);
+            board[pit].setPowerUpId(pool[rnd.nextInt(pool.length)]);
         }
     }
     // --- New API: allow enabling/disabling specific power-up codes ---
-    // Static registry of all supported power-up codes -> supplier
-    private static final Map<String, Supplier<PowerUp>> REGISTRY = new LinkedHashMap<>();
-    // cached set of all codes (LinkedHashSet preserves insertion order)
-    private static final Set<String> ALL_CODES;
+    // Power-ups are stateless, so each code has a single shared instance.
+    private static final Map<String, PowerUp> REGISTRY = new LinkedHashMap<>();
+    // mask of every registered id
+    private static final int ALL_MASK;
+    // shared instances indexed by compact id (slot 0 = none)
+    private static final PowerUp[] BY_ID = new PowerUp[11];
+
+    // compact ids, matching ID_LETTERS
+    public static final byte DOUBLE_CAPTURE = 1, BONUS_TURN = 2, REVERSE_SOWING = 3, SHELL_MAGNET = 4, STEAL_SHELLS = 5,
+            PIT_SHIELD = 6, ADD_SHELLS = 7, SWAP_HOUSES = 8, SKIP_OPPONENT = 9, LUCKY_DROP = 10;
 
     static {
-        REGISTRY.put("D", DoubleCapturePU::new);
-        REGISTRY.put("B", BonusTurnPU::new);
-        REGISTRY.put("R", ReverseSowPU::new);
-        REGISTRY.put("M", ShellMagnetPU::new);
-        REGISTRY.put("S", StealShellsPU::new);
-        REGISTRY.put("P", PitShieldPU::new);
-        REGISTRY.put("A", AddShellsPU::new);
-        REGISTRY.put("W", SwapHousesPU::new);
-        REGISTRY.put("K", SkipOpponentPU::new);
-        REGISTRY.put("L", LuckyDropPU::new);
-        ALL_CODES = new LinkedHashSet<>(REGISTRY.keySet());
+        register(new DoubleCapturePU());
+        register(new BonusTurnPU());
+        register(new ReverseSowPU());
+        register(new ShellMagnetPU());
+        register(new StealShellsPU());
+        register(new PitShieldPU());
+        register(new AddShellsPU());
+        register(new SwapHousesPU());
+        register(new SkipOpponentPU());
+        register(new LuckyDropPU());
+        int all = 0;
+        for (PowerUp p : REGISTRY.values()) all |= 1 << p.getId();
+        ALL_MASK = all;
+    }
+
+    private static void register(PowerUp p) {
+        REGISTRY.put(p.getCode(), p);
+        BY_ID[p.getId()] = p;
     }
+
     // Configure which power-up codes are enabled (codes are single letters like "P", "S", etc.).
-    public void setAllowedCodes(Collection<String> codes) {
-        pool.clear();
-        if (codes == null) codes = ALL_CODES;
+    public void setAllowedCodes(Collection<String> codes) { setAllowedMask(maskOf(codes)); }
+
+    // Same, with the enabled power-ups given as a bit mask over compact ids (unknown bits are ignored).
+    public void setAllowedMask(int mask) {
+        allowedMask = mask & ALL_MASK;
+        byte[] p = new byte[Integer.bitCount(allowedMask)];
+        int k = 0;
+        // registry order, so a given mask always yields the same draws for a seed
+        for (byte id = 1; id < BY_ID.length; id++) if ((allowedMask & (1 << id)) != 0) p[k++] = id;
+        pool = p;
+    }
+
+    // Return the enabled power-ups as a bit mask over compact ids (bit 1 << id).
+    public int getAllowedMask() { return allowedMask; }
+
+    // --- Compact ids for primitive board representations ---
+    // Letters in registry order; a power-up's id is its 1-based position (0 means "no power-up").
+    public static final String ID_LETTERS = "DBRMSPAWKL";
+
+    // Return the compact id for a single-letter code, or 0 if the code is unknown.
+    public static byte idOf(String code) {
+        if (code == null || code.length() != 1) return 0;
+        return (byte) (ID_LETTERS.indexOf(code.charAt(0)) + 1);
+    }
+
+    // Return the single-letter code for a compact id, or null for 0/unknown ids.
+    public static String codeOf(byte id) {
+        return (id <= 0 || id > ID_LETTERS.length()) ? null : String.valueOf(ID_LETTERS.charAt(id - 1));
+    }
+
+    // The shared power-up for a compact id (null for 0/unknown ids).
+    public static PowerUp byId(byte id) { return id <= 0 || id >= BY_ID.length ? null : BY_ID[id]; }
+
+    // Bit mask (1 << id) of the given codes; null means every registered code.
+    public static int maskOf(Collection<String> codes) {
+        if (codes == null) return ALL_MASK;
+        int mask = 0;
         for (String c : codes) {
-            Supplier<PowerUp> s = REGISTRY.get(c);
-            if (s != null) pool.add(s);
+            byte id = idOf(c);
+            if (id != 0 && REGISTRY.containsKey(c)) mask |= 1 << id;
         }
+        return mask;
     }
 
     // Return a map of available power-up codes to their display name.
     public static Map<String, String> getAvailableDefinitions() {
         Map<String, String> out = new LinkedHashMap<>();
-        for (Map.Entry<String, Supplier<PowerUp>> e : REGISTRY.entrySet()) {
-            PowerUp p = e.getValue().get();
-            out.put(e.getKey(), p.getName());
-        }
+        for (Map.Entry<String, PowerUp> e : REGISTRY.entrySet()) out.put(e.getKey(), e.getValue().getName());
         return out;
     }
     // Return a map of code -> description for available power-ups.
     public static Map<String, String> getAvailableDescriptions() {
         Map<String, String> out = new LinkedHashMap<>();
-        for (Map.Entry<String, Supplier<PowerUp>> e : REGISTRY.entrySet()) {
-            PowerUp p = e.getValue().get();
-            out.put(e.getKey(), p.getDescription());
-        }
+        for (Map.Entry<String, PowerUp> e : REGISTRY.entrySet()) out.put(e.getKey(), e.getValue().getDescription());
         return out;
     }
 }
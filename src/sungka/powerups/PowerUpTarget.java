@@ -0,0 +1,22 @@
+package sungka.powerups;
+
+import sungka.core.GameEvent;
+
+// What a power-up effect can read and change. Implemented by SungkaGame and by
+// the primitive BoardState, so one effect table (PowerUpEffects) drives both
+// the real game and AI search. `side` is 0 for player A and 1 for player B.
+public interface PowerUpTarget {
+    int stonesAt(int pit);
+    void setStonesAt(int pit, int stones);
+
+    void setDoubleCapture(boolean v);
+    void setBonusTurn(boolean v);
+    void setReverseSowing(boolean v);
+    void setSkipOpponent(boolean v);
+
+    // Shield `pit` of `side` for `turns` turns.
+    void protectPit(int side, int pit, int turns);
+
+    // Report an effect (targets without a listener ignore it).
+    void emit(GameEvent e, int side, int a, int b);
+}
@@ -0,0 +1,130 @@
+package sungka.record;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+ // Asynchronous game-record archive for interactive use: append() only
+ // enqueues, and a daemon writer thread opens the file, writes the queued
+ // records in batches through a GameRecordWriter and flushes after each batch,
+ // so the caller (typically the event thread) never touches the disk.
+ // Same lifecycle as MatchHistory: shared() returns at once, close() writes
+ // out what is queued and stops the writer.
+public class GameArchive implements AutoCloseable {
+    // largest batch taken from the queue per flush
+    private static final int BATCH = 64;
+    // queued by close() to stop the writer after everything before it
+    private static final GameRecord END = new GameRecord(0, 0, 1, GameRecord.HUMAN, GameRecord.HUMAN, new byte[0]);
+
+    private static volatile GameArchive shared;
+
+    private final Path file;
+    private final BlockingQueue<GameRecord> queue = new LinkedBlockingQueue<>();
+    private final Thread writer;
+    // records accepted by append() and records written or dropped so far (guarded by this)
+    private long appended, written;
+    private volatile boolean closed;
+
+    // Does no I/O: the writer thread opens `file` (appending) before its first write.
+    public GameArchive(Path file) {
+        this.file = file;
+        writer = new Thread(this::writeLoop, "game-archive-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    // The archive in GameRecordWriter.DEFAULT_FILE of the working directory (flushed at JVM exit).
+    // If the file cannot be opened, the error is reported on stderr and records are dropped.
+    public static GameArchive shared() {
+        if (shared == null) {
+            synchronized (GameArchive.class) {
+                if (shared == null) {
+                    GameArchive a = new GameArchive(Paths.get(GameRecordWriter.DEFAULT_FILE));
+                    Runtime.getRuntime().addShutdownHook(new Thread(a::close, "game-archive-close"));
+                    shared = a;
+                }
+            }
+        }
+        return shared;
+    }
+
+    // Queue a record for writing; never blocks on I/O. Ignored after close().
+    public void append(GameRecord r) {
+        if (closed) return;
+        synchronized (this) { appended++; }
+        queue.add(r);
+    }
+
+    // Wait until every record appended so far has been written (or dropped on an I/O error).
+    public void flush() throws InterruptedException {
+        synchronized (this) {
+            long target = appended;
+            while (written < target && writer.isAlive()) wait(100);
+        }
+    }
+
+    // Write out queued records and stop the writer.
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+        queue.add(END);
+        try {
+            writer.join();
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void writeLoop() {
+        GameRecordWriter out = null;
+        try {
+            out = GameRecordWriter.append(file);
+        } catch (IOException ex) {
+            System.err.println("Game records disabled: " + ex.getMessage());
+        }
+        List<GameRecord> batch = new ArrayList<>(BATCH);
+        boolean running = true;
+        try {
+            while (running) {
+                batch.clear();
+                batch.add(queue.take());
+                queue.drainTo(batch, BATCH - 1);
+                // by identity: GameRecord.equals compares contents
+                int end = -1;
+                for (int i = 0; i < batch.size() && end < 0; i++) if (batch.get(i) == END) end = i;
+                if (end >= 0) {
+                    running = false;
+                    // records queued after END (raced with close) are still written
+                    batch.remove(end);
+                    queue.drainTo(batch);
+                }
+                try {
+                    // without an open file, records are only counted so flush() returns
+                    if (out != null && !batch.isEmpty()) {
+                        for (GameRecord r : batch) out.write(r);
+                        out.flush();
+                    }
+                } catch (IOException ex) {
+                    System.err.println("Game record write failed: " + ex.getMessage());
+                }
+                synchronized (this) {
+                    written += batch.size();
+                    notifyAll();
+                }
+            }
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        } finally {
+            try {
+                if (out != null) out.close();
+            } catch (IOException ignored) {
+                // nothing left to write
+            }
+        }
+    }
+}
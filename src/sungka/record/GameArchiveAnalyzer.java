@@ -0,0 +1,305 @@
+package sungka.record;
+
+import sungka.ai.SimpleAI;
+import sungka.core.GameEvent;
+import sungka.core.GameEventListener;
+import sungka.core.SungkaGame;
+import sungka.model.Player;
+import sungka.powerups.PowerUpManager;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+ // Replays game-record archives in parallel and aggregates what happened:
+ // power-up use per code, captures per pit, house-landing chain lengths and
+ // results and margins per controller (human or AI difficulty).
+ // Archives are cut into fixed-size chunks, each a fork/join leaf that reads
+ // its chunk (plus one frame of overlap) into its worker's reused buffer and
+ // analyzes the records whose magic starts inside it; a leaf's partial Report
+ // is merged on the way up. Every byte is read once and each worker holds one
+ // chunk buffer, so archives larger than memory are handled in a single
+ // streaming pass with bounded memory.
+ // Usage: GameArchiveAnalyzer [-threads n] [file...]
+public class GameArchiveAnalyzer {
+    // archive bytes per leaf task
+    static final int CHUNK = 8 << 20;
+    // chains of this length or longer share the last histogram slot
+    public static final int MAX_CHAIN = 8;
+    // controller slots: HUMAN, then SimpleAI.Difficulty ordinals
+    public static final int CONTROLLERS = 1 + SimpleAI.Difficulty.values().length;
+
+    // Totals over a set of games.
+    public static final class Report {
+        public long games, plies, unreplayable;
+        // bytes in valid records vs. bytes of the archives read
+        public long recordBytes, archiveBytes;
+        // by power-up id: activations from a pit, activations of captured power-ups
+        public final long[] activations = new long[PowerUpManager.ID_LETTERS.length() + 1];
+        public final long[] capturedActivations = new long[PowerUpManager.ID_LETTERS.length() + 1];
+        // activations refused by the per-turn limit (the power-up is still used up)
+        public long limitedActivations;
+        // by captured pit: number of captures and stones taken (before the +1)
+        public final long[] captures = new long[16];
+        public final long[] capturedStones = new long[16];
+        // chains[n] = runs of exactly n consecutive sows landing in the sower's house
+        public final long[] chains = new long[MAX_CHAIN + 1];
+        // by controller slot (see slotOf): sides played, sides won, summed house margin
+        public final long[] sides = new long[CONTROLLERS];
+        public final long[] wins = new long[CONTROLLERS];
+        public final long[] margin = new long[CONTROLLERS];
+
+        public void merge(Report o) {
+            games += o.games;
+            plies += o.plies;
+            unreplayable += o.unreplayable;
+            recordBytes += o.recordBytes;
+            archiveBytes += o.archiveBytes;
+            limitedActivations += o.limitedActivations;
+            add(activations, o.activations);
+            add(capturedActivations, o.capturedActivations);
+            add(captures, o.captures);
+            add(capturedStones, o.capturedStones);
+            add(chains, o.chains);
+            add(sides, o.sides);
+            add(wins, o.wins);
+            add(margin, o.margin);
+        }
+
+        private static void add(long[] to, long[] from) { for (int i = 0; i < to.length; i++) to[i] += from[i]; }
+
+        void clear() {
+            games = plies = unreplayable = recordBytes = archiveBytes = limitedActivations = 0;
+            Arrays.fill(activations, 0);
+            Arrays.fill(capturedActivations, 0);
+            Arrays.fill(captures, 0);
+            Arrays.fill(capturedStones, 0);
+            Arrays.fill(chains, 0);
+            Arrays.fill(sides, 0);
+            Arrays.fill(wins, 0);
+            Arrays.fill(margin, 0);
+        }
+
+        public void print(PrintStream out) {
+            out.printf("%,d games, %,d plies, %.1f bytes per game, %,d not replayable, %,d bytes skipped%n",
+                    games, plies, games == 0 ? 0.0 : recordBytes / (double) games, unreplayable, archiveBytes - recordBytes);
+            out.println("Power-ups (code: from pit / captured)");
+            for (byte id = 1; id < activations.length; id++) {
+                out.printf("  %s %-16s %,10d %,10d%n", PowerUpManager.codeOf(id), PowerUpManager.byId(id).getName(), activations[id], capturedActivations[id]);
+            }
+            out.printf("  refused by the per-turn limit: %,d%n", limitedActivations);
+            out.println("Captures per pit (count, avg stones)");
+            for (int p = 0; p < 16; p++) {
+                if ((p & 7) == 7) continue;
+                out.printf("  pit %2d %,10d %6.2f%n", p, captures[p], captures[p] == 0 ? 0.0 : capturedStones[p] / (double) captures[p]);
+            }
+            out.println("House-landing chains (length: runs)");
+            for (int n = 1; n <= MAX_CHAIN; n++) out.printf("  %s%d %,10d%n", n == MAX_CHAIN ? ">=" : "  ", n, chains[n]);
+            out.println("By controller (sides, win rate, avg margin)");
+            for (int c = 0; c < CONTROLLERS; c++) {
+                if (sides[c] == 0) continue;
+                out.printf("  %-8s %,10d %6.1f%% %+7.2f%n", c == 0 ? "Human" : SimpleAI.Difficulty.values()[c - 1].name(),
+                        sides[c], 100.0 * wins[c] / sides[c], margin[c] / (double) sides[c]);
+            }
+        }
+    }
+
+    // Slot of a GameRecord controller (unknown ones count as human).
+    static int slotOf(int controller) { return controller < 0 || controller >= CONTROLLERS - 1 ? 0 : controller + 1; }
+
+    // Analyze the given archives on `pool`.
+    public static Report analyze(List<Path> files, ForkJoinPool pool) throws IOException {
+        List<FileChannel> channels = new ArrayList<>();
+        List<Chunk> chunks = new ArrayList<>();
+        try {
+            for (Path f : files) {
+                FileChannel ch = FileChannel.open(f, StandardOpenOption.READ);
+                channels.add(ch);
+                long size = ch.size();
+                for (long start = 0; start < size; start += CHUNK) chunks.add(new Chunk(ch, start, Math.min(size, start + CHUNK), size));
+            }
+            return pool.invoke(new ChunkTask(chunks, 0, chunks.size()));
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        } finally {
+            for (FileChannel ch : channels) ch.close();
+        }
+    }
+
+    // Bytes [start, end) of a file of `size` bytes.
+    private static final class Chunk {
+        final FileChannel channel;
+        final long start, end, size;
+
+        Chunk(FileChannel channel, long start, long end, long size) {
+            this.channel = channel;
+            this.start = start;
+            this.end = end;
+            this.size = size;
+        }
+    }
+
+    // Splits its chunk range in halves down to single chunks.
+    private static final class ChunkTask extends RecursiveTask<Report> {
+        private static final long serialVersionUID = 1L;
+        private final transient List<Chunk> chunks;
+        private final int from, to;
+
+        ChunkTask(List<Chunk> chunks, int from, int to) {
+            this.chunks = chunks;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Report compute() {
+            if (to - from <= 1) {
+                Report r = new Report();
+                if (from < to) {
+                    try {
+                        new ChunkScanner(r).scan(chunks.get(from));
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+                }
+                return r;
+            }
+            int mid = (from + to) >>> 1;
+            ChunkTask right = new ChunkTask(chunks, mid, to);
+            right.fork();
+            Report r = new ChunkTask(chunks, from, mid).compute();
+            r.merge(right.join());
+            return r;
+        }
+    }
+
+    // chunk buffer of each worker thread, reused by all leaves that thread runs
+    private static final ThreadLocal<ByteBuffer> BUFFERS =
+            ThreadLocal.withInitial(() -> ByteBuffer.allocate(CHUNK + GameRecordReader.MAX_FRAME));
+
+    // Replays the records of one chunk into a Report. One instance per leaf.
+    static final class ChunkScanner implements GameEventListener {
+        private final Report total;
+        // the game being replayed; merged into `total` only when it replays completely
+        private final Report game = new Report();
+        // set by events during the current ply
+        private boolean landed, limited;
+        // open house-landing chain of each side (0 = A, 1 = B)
+        private final int[] chain = new int[2];
+
+        ChunkScanner(Report total) { this.total = total; }
+
+        void scan(Chunk c) throws IOException {
+            total.archiveBytes += c.end - c.start;
+            long readEnd = Math.min(c.size, c.end + GameRecordReader.MAX_FRAME);
+            ByteBuffer buf = BUFFERS.get();
+            buf.clear().limit((int) (readEnd - c.start));
+            while (buf.hasRemaining()) {
+                if (c.channel.read(buf, c.start + buf.position()) < 0) break;
+            }
+            buf.flip();
+            int owned = (int) (c.end - c.start);
+            int p = GameRecord.findMagic(buf, 0);
+            while (p >= 0 && p < owned) {
+                buf.position(p);
+                GameRecord r = GameRecord.decode(buf);
+                if (r == null) {
+                    p = GameRecord.findMagic(buf, p + 1);
+                    continue;
+                }
+                total.recordBytes += r.encodedSize();
+                replay(r);
+                p = buf.position();
+            }
+        }
+
+        // Replay one record, collecting its statistics.
+        void replay(GameRecord r) {
+            game.clear();
+            chain[0] = chain[1] = 0;
+            SungkaGame g = r.newGame();
+            g.setEventListener(this);
+            for (int i = 0; i < r.plyCount(); i++) {
+                int ply = r.ply(i), pit = ply & ~SungkaGame.PLY_ACTIVATION;
+                int side = g.getCurrent().getIndex();
+                boolean activation = (ply & SungkaGame.PLY_ACTIVATION) != 0;
+                byte id = g.board[pit].getPowerUpId();
+                landed = limited = false;
+                if (!GameRecord.play(g, ply)) {
+                    total.unreplayable++;
+                    return;
+                }
+                if (activation) {
+                    if (limited) game.limitedActivations++;
+                    else game.activations[id]++;
+                } else if (landed) {
+                    chain[side]++;
+                } else {
+                    endChain(side);
+                }
+            }
+            endChain(0);
+            endChain(1);
+            game.games = 1;
+            game.plies = r.plyCount();
+            int a = g.board[g.playerA.getHouseIndex()].getStones(), b = g.board[g.playerB.getHouseIndex()].getStones();
+            Player winner = g.checkForWinner();
+            side(slotOf(r.controllerA), a - b, winner == g.playerA);
+            side(slotOf(r.controllerB), b - a, winner == g.playerB);
+            total.merge(game);
+        }
+
+        private void side(int slot, int margin, boolean won) {
+            game.sides[slot]++;
+            game.margin[slot] += margin;
+            if (won) game.wins[slot]++;
+        }
+
+        private void endChain(int side) {
+            int n = chain[side];
+            if (n > 0) game.chains[Math.min(n, MAX_CHAIN)]++;
+            chain[side] = 0;
+        }
+
+        @Override
+        public void onEvent(GameEvent event, int side, int a, int b) {
+            switch (event) {
+                case HOUSE_LANDING: landed = true; break;
+                case ACTIVATION_LIMIT: limited = true; break;
+                case CAPTURE:
+                    game.captures[a]++;
+                    game.capturedStones[a] += b;
+                    break;
+                case CAPTURED_POWER_UP_ACTIVATED: game.capturedActivations[a]++; break;
+                default: break;
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        int threads = Runtime.getRuntime().availableProcessors();
+        List<Path> files = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("-threads") && i + 1 < args.length) threads = Integer.parseInt(args[++i]);
+            else files.add(Paths.get(args[i]));
+        }
+        if (files.isEmpty()) files.add(Paths.get(GameRecordWriter.DEFAULT_FILE));
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        long t0 = System.nanoTime();
+        Report r = analyze(files, pool);
+        pool.shutdown();
+        double secs = (System.nanoTime() - t0) / 1e9;
+        r.print(System.out);
+        System.out.printf("%.2f s on %d threads (%,.0f games/s, %,.1f MB/s)%n", secs, threads, r.games / secs, r.archiveBytes / 1e6 / secs);
+    }
+}
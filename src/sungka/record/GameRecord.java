@@ -0,0 +1,173 @@
+package sungka.record;
+
+import sungka.core.GameEventListener;
+import sungka.core.SungkaGame;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+ // The moves of one game in compact form: the seed and configuration the game
+ // was created with (see SungkaGame(long, int, int)) plus one byte per ply, so
+ // the whole game - every refill and placement included - can be replayed.
+ // Framed encoding, as written by GameRecordWriter:
+ //   magic "SKGR" (4 bytes), body length (varint), body
+ //   body = version, seed (8 bytes), power-up mask, win threshold,
+ //          player A, player B (each varint controller + 1), plies, END
+ // A ply is the value of SungkaGame.getPly (pit | PLY_ACTIVATION), a one-byte
+ // varint. The magic lets readers find the next record after damage and lets
+ // archives be split at arbitrary offsets.
+public final class GameRecord {
+    public static final int MAGIC = 0x534B4752; // "SKGR"
+    // 2: start layouts from the mask-based PowerUpManager.refillToCap (version 1 games no longer replay)
+    public static final int VERSION = 2;
+    // closes the ply list (no ply value reaches it)
+    static final int END = 0x7F;
+    // body length limit, so a corrupt length cannot make readers buffer much
+    public static final int MAX_BODY = 1 << 16;
+    // controller of a side played by a person; AI sides store a SimpleAI.Difficulty ordinal
+    public static final int HUMAN = -1;
+
+    public final long seed;
+    public final int allowedPowerUpMask;
+    public final int winThreshold;
+    // HUMAN or the SimpleAI.Difficulty ordinal playing each side
+    public final int controllerA, controllerB;
+    private final byte[] plies;
+
+    public GameRecord(long seed, int allowedPowerUpMask, int winThreshold, int controllerA, int controllerB, byte[] plies) {
+        this.seed = seed;
+        this.allowedPowerUpMask = allowedPowerUpMask;
+        this.winThreshold = winThreshold;
+        this.controllerA = controllerA;
+        this.controllerB = controllerB;
+        this.plies = plies;
+    }
+
+    // Record of a game created with SungkaGame(seed, mask, threshold) whose configuration
+    // has not changed since, built from its ply history.
+    public static GameRecord of(SungkaGame game, int controllerA, int controllerB) {
+        byte[] p = new byte[game.getPlyCount()];
+        for (int i = 0; i < p.length; i++) p[i] = (byte) game.getPly(i);
+        return new GameRecord(game.getSeed(), game.getAllowedPowerUpMask(), game.getWinThreshold(), controllerA, controllerB, p);
+    }
+
+    public int plyCount() { return plies.length; }
+
+    // The i-th ply, as SungkaGame.getPly returned it.
+    public int ply(int i) { return plies[i]; }
+
+    // The game as created, before any ply.
+    public SungkaGame newGame() { return new SungkaGame(seed, allowedPowerUpMask, winThreshold); }
+
+    // Replay every ply on a new game (with `listener` installed, if not null) and return it.
+    // Throws IllegalStateException when a ply is not playable, i.e. the record does not
+    // belong to this ruleset or was built from a game whose configuration changed.
+    public SungkaGame replay(GameEventListener listener) {
+        SungkaGame g = newGame();
+        g.setEventListener(listener);
+        for (int i = 0; i < plies.length; i++) {
+            if (!play(g, plies[i])) throw new IllegalStateException("ply " + i + " (" + plies[i] + ") is not playable");
+        }
+        return g;
+    }
+
+    // Play one ply; false if it cannot have been played in this position.
+    static boolean play(SungkaGame g, int ply) {
+        int pit = ply & ~SungkaGame.PLY_ACTIVATION;
+        if ((ply & SungkaGame.PLY_ACTIVATION) == 0) return g.makeMove(pit);
+        // a rejected activation still consumes the power-up, so only its preconditions are checked
+        if (!g.getCurrent().ownsPit(pit) || !g.board[pit].hasPowerUp()) return false;
+        g.activatePowerUpInPit(pit);
+        return true;
+    }
+
+    // Size of the framed record in bytes.
+    public int encodedSize() {
+        int body = bodySize();
+        return 4 + varintSize(body) + body;
+    }
+
+    private int bodySize() {
+        return 1 + 8 + varintSize(allowedPowerUpMask) + varintSize(winThreshold)
+                + varintSize(controllerA + 1) + varintSize(controllerB + 1) + plies.length + 1;
+    }
+
+    // Write the framed record at the buffer's position.
+    public void encode(ByteBuffer b) {
+        b.putInt(MAGIC);
+        putVarint(b, bodySize());
+        b.put((byte) VERSION).putLong(seed);
+        putVarint(b, allowedPowerUpMask);
+        putVarint(b, winThreshold);
+        putVarint(b, controllerA + 1);
+        putVarint(b, controllerB + 1);
+        b.put(plies).put((byte) END);
+    }
+
+    // Parse a body of `length` bytes at the buffer's position; returns null (position
+    // unspecified) when it is not a well-formed body of this version.
+    static GameRecord decodeBody(ByteBuffer b, int length) {
+        int end = b.position() + length;
+        if (length < 10 || end > b.limit() || b.get() != VERSION) return null;
+        long seed = b.getLong();
+        int mask = getVarint(b, end), threshold = getVarint(b, end);
+        int a = getVarint(b, end), c = getVarint(b, end);
+        if (mask < 0 || threshold <= 0 || a < 0 || c < 0 || end - b.position() < 1) return null;
+        byte[] p = new byte[end - b.position() - 1];
+        b.get(p);
+        // a ply is a small pit: houses (7 and 15) are never sown or activated
+        for (byte v : p) if ((v & ~(SungkaGame.PLY_ACTIVATION | 15)) != 0 || (v & 7) == 7) return null;
+        if (b.get() != END) return null;
+        return new GameRecord(seed, mask, threshold, a - 1, c - 1, p);
+    }
+
+    // Parse the framed record at the buffer's position, leaving the position after it;
+    // null (position unspecified) if no valid record starts there.
+    public static GameRecord decode(ByteBuffer b) {
+        if (b.remaining() < 5 || b.getInt() != MAGIC) return null;
+        int length = getVarint(b, b.limit());
+        if (length < 0 || length > MAX_BODY) return null;
+        return decodeBody(b, length);
+    }
+
+    // Index of the first magic at or after `from` (absolute, up to the limit), or -1.
+    static int findMagic(ByteBuffer b, int from) {
+        for (int i = from, last = b.limit() - 4; i <= last; i++) {
+            if (b.get(i) == 'S' && b.getInt(i) == MAGIC) return i;
+        }
+        return -1;
+    }
+
+    static int varintSize(int v) {
+        int n = 1;
+        while ((v & ~0x7F) != 0) { v >>>= 7; n++; }
+        return n;
+    }
+
+    static void putVarint(ByteBuffer b, int v) {
+        while ((v & ~0x7F) != 0) { b.put((byte) (v | 0x80)); v >>>= 7; }
+        b.put((byte) v);
+    }
+
+    // Unsigned LEB128 int ending before `limit`, or -1 if malformed.
+    static int getVarint(ByteBuffer b, int limit) {
+        int v = 0;
+        for (int shift = 0; shift < 32 && b.position() < limit; shift += 7) {
+            int x = b.get();
+            v |= (x & 0x7F) << shift;
+            if (x >= 0) return v;
+        }
+        return -1;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof GameRecord)) return false;
+        GameRecord r = (GameRecord) o;
+        return seed == r.seed && allowedPowerUpMask == r.allowedPowerUpMask && winThreshold == r.winThreshold
+                && controllerA == r.controllerA && controllerB == r.controllerB && Arrays.equals(plies, r.plies);
+    }
+
+    @Override
+    public int hashCode() { return Long.hashCode(seed) * 31 + Arrays.hashCode(plies); }
+}
@@ -0,0 +1,91 @@
+package sungka.record;
+
+import sungka.core.SungkaGame;
+import sungka.model.Player;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+ // Streams GameRecords back from anything GameRecordWriter produced.
+ // Input is read through one fixed buffer that always holds at least a whole
+ // frame (or the rest of the stream), so any file size reads in constant memory.
+ // Bytes that do not form a valid record (a torn last record, damage in the
+ // middle) are skipped up to the next magic and counted in skippedBytes().
+public class GameRecordReader implements Closeable {
+    // largest possible frame: magic, 3-byte length, body
+    static final int MAX_FRAME = 4 + 3 + GameRecord.MAX_BODY;
+
+    private final InputStream in;
+    private final byte[] data = new byte[2 * MAX_FRAME];
+    // position = next unread byte, limit = end of buffered input
+    private final ByteBuffer view = ByteBuffer.wrap(data).limit(0);
+    private boolean eof;
+    private long skipped;
+
+    public GameRecordReader(InputStream in) { this.in = in; }
+
+    public static GameRecordReader open(Path file) throws IOException { return new GameRecordReader(Files.newInputStream(file)); }
+
+    // The next valid record, or null at the end of the stream.
+    public GameRecord next() throws IOException {
+        while (true) {
+            if (view.remaining() < MAX_FRAME) fill();
+            if (!view.hasRemaining()) return null;
+            int start = view.position();
+            GameRecord r = GameRecord.decode(view);
+            if (r != null) return r;
+            // not a record here: resume at the next magic (keeping a possible partial one at the end)
+            int next = GameRecord.findMagic(view, start + 1);
+            if (next < 0) next = eof ? view.limit() : Math.max(start + 1, view.limit() - 3);
+            skipped += next - start;
+            view.position(next);
+        }
+    }
+
+    // Bytes skipped so far because they did not belong to a valid record.
+    public long skippedBytes() { return skipped; }
+
+    private void fill() throws IOException {
+        view.compact();
+        while (!eof && view.hasRemaining()) {
+            int n = in.read(data, view.position(), view.remaining());
+            if (n < 0) eof = true;
+            else view.position(view.position() + n);
+        }
+        view.flip();
+    }
+
+    @Override
+    public void close() throws IOException { in.close(); }
+
+    // Replay every record of a file and print a summary.
+    // Usage: GameRecordReader [file]
+    public static void main(String[] args) throws IOException {
+        Path file = Paths.get(args.length > 0 ? args[0] : GameRecordWriter.DEFAULT_FILE);
+        long games = 0, plies = 0, bytes = 0, winsA = 0, winsB = 0, bad = 0;
+        try (GameRecordReader reader = open(file)) {
+            for (GameRecord r; (r = reader.next()) != null; ) {
+                games++;
+                plies += r.plyCount();
+                bytes += r.encodedSize();
+                try {
+                    SungkaGame g = r.replay(null);
+                    Player w = g.checkForWinner();
+                    if (w == g.playerA) winsA++;
+                    else if (w == g.playerB) winsB++;
+                } catch (IllegalStateException ex) {
+                    bad++;
+                }
+            }
+            System.out.printf("%,d games in %s (%,d bytes skipped)%n", games, file, reader.skippedBytes());
+        }
+        if (games == 0) return;
+        System.out.printf("avg %.1f plies, %.1f bytes per game | A won %,d, B won %,d, unfinished %,d, not replayable %,d%n",
+                plies / (double) games, bytes / (double) games, winsA, winsB, games - winsA - winsB - bad, bad);
+    }
+}
@@ -0,0 +1,53 @@
+package sungka.record;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+ // Appends framed GameRecords to a stream. Records are written whole, one
+ // after another, and write() is synchronized, so tournament threads can share
+ // one writer. A record takes about 20 bytes plus one byte per ply.
+ // Writes block on the stream; GameArchive does them on a background thread.
+public class GameRecordWriter implements Closeable, Flushable {
+    public static final String DEFAULT_FILE = "game_records.skg";
+
+    private final OutputStream out;
+    // reused encoding buffer (grown for long games)
+    private ByteBuffer buf = ByteBuffer.allocate(512);
+    private long records, bytes;
+
+    public GameRecordWriter(OutputStream out) { this.out = out; }
+
+    // Append to `file`, creating it if needed.
+    public static GameRecordWriter append(Path file) throws IOException {
+        return new GameRecordWriter(new BufferedOutputStream(
+                Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.WRITE), 1 << 16));
+    }
+
+    public synchronized void write(GameRecord r) throws IOException {
+        int size = r.encodedSize();
+        if (size > buf.capacity()) buf = ByteBuffer.allocate(Math.max(size, buf.capacity() * 2));
+        buf.clear();
+        r.encode(buf);
+        out.write(buf.array(), 0, size);
+        records++;
+        bytes += size;
+    }
+
+    // Records and bytes written by this writer.
+    public synchronized long records() { return records; }
+
+    public synchronized long bytes() { return bytes; }
+
+    @Override
+    public synchronized void flush() throws IOException { out.flush(); }
+
+    @Override
+    public synchronized void close() throws IOException { out.close(); }
+}
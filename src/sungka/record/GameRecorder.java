@@ -0,0 +1,51 @@
+package sungka.record;
+
+import sungka.core.SungkaGame;
+
+import java.util.Arrays;
+
+ // Records a game as it is played: attach() installs it as the game's ply
+ // listener, so every makeMove / activatePowerUpInPit appends one byte, and
+ // finish() detaches it and returns the GameRecord.
+ // The game must be unplayed and created with SungkaGame(seed, mask, threshold)
+ // (or SungkaGame(seed)), with no configuration change afterwards.
+public final class GameRecorder implements SungkaGame.PlyListener {
+    private final SungkaGame game;
+    private final long seed;
+    private final int allowedPowerUpMask, winThreshold;
+    private final int controllerA, controllerB;
+    private byte[] plies = new byte[128];
+    private int count;
+
+    private GameRecorder(SungkaGame game, int controllerA, int controllerB) {
+        this.game = game;
+        this.seed = game.getSeed();
+        this.allowedPowerUpMask = game.getAllowedPowerUpMask();
+        this.winThreshold = game.getWinThreshold();
+        this.controllerA = controllerA;
+        this.controllerB = controllerB;
+    }
+
+    // Start recording `game`; controllers are GameRecord.HUMAN or a SimpleAI.Difficulty ordinal.
+    public static GameRecorder attach(SungkaGame game, int controllerA, int controllerB) {
+        if (game.getPlyCount() != 0) throw new IllegalStateException("game already started");
+        GameRecorder r = new GameRecorder(game, controllerA, controllerB);
+        game.setPlyListener(r);
+        return r;
+    }
+
+    @Override
+    public void onPly(int ply) {
+        if (count == plies.length) plies = Arrays.copyOf(plies, count * 2);
+        plies[count++] = (byte) ply;
+    }
+
+    // Number of plies recorded so far.
+    public int plyCount() { return count; }
+
+    // Stop recording and return the game's record.
+    public GameRecord finish() {
+        game.setPlyListener(null);
+        return new GameRecord(seed, allowedPowerUpMask, winThreshold, controllerA, controllerB, Arrays.copyOf(plies, count));
+    }
+}
@@ -0,0 +1,58 @@
+package sungka.test;
+
+import sungka.ai.ArrayTranspositionTable;
+import sungka.ai.SearchEngine;
+import sungka.core.GameRandom;
+import sungka.core.SungkaGame;
+import sungka.model.Player;
+
+ // Checks that chance nodes cost nothing in games without power-ups, where no
+ // move draws from the random stream: a SearchEngine with the default chance
+ // shape must search exactly like one with setChance(1, 0), i.e. the same
+ // score, best move and node count at every depth. Positions are random
+ // power-up-free games a few plies in; each search starts from a fresh
+ // transposition table and fresh heuristics.
+ // Prints the mismatches and exits with status 1 if there are any.
+ // Usage: ChanceCheck [positions] [maxDepth] [seed]
+public class ChanceCheck {
+    // mismatches printed before the rest are only counted
+    private static final int MAX_REPORTS = 10;
+    private static final int TABLE_ENTRIES = 1 << 16;
+
+    public static void main(String[] args) {
+        int positions = args.length > 0 ? Integer.parseInt(args[0]) : 40;
+        int maxDepth = args.length > 1 ? Integer.parseInt(args[1]) : 6;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 1L;
+        GameRandom rnd = new GameRandom(seed);
+        long mismatches = 0, nodes = 0;
+
+        for (int pi = 0; pi < positions; pi++) {
+            SungkaGame g = new SungkaGame(rnd.nextLong(), 0, SungkaGame.WIN_THRESHOLD);
+            for (int ply = rnd.nextInt(30); ply > 0 && g.checkForWinner() == null; ply--) {
+                Player cur = g.getCurrent();
+                int legal = g.getLegalMoveMask(cur);
+                if (legal == 0) break;
+                int pick = rnd.nextInt(Integer.bitCount(legal));
+                while (pick-- > 0) legal &= legal - 1;
+                g.makeMove(Integer.numberOfTrailingZeros(legal));
+            }
+            for (int depth = 1; depth <= maxDepth; depth++) {
+                SearchEngine sampled = new SearchEngine(new ArrayTranspositionTable(TABLE_ENTRIES));
+                SearchEngine single = new SearchEngine(new ArrayTranspositionTable(TABLE_ENTRIES));
+                single.setChance(1, 0);
+                double a = sampled.search(g, depth, -SearchEngine.INF, SearchEngine.INF);
+                double b = single.search(g, depth, -SearchEngine.INF, SearchEngine.INF);
+                nodes += single.getNodeCount();
+                if (a != b || sampled.getRootBestMove() != single.getRootBestMove() || sampled.getNodeCount() != single.getNodeCount()) {
+                    if (++mismatches <= MAX_REPORTS) {
+                        System.out.printf("position %d depth %d: default chance %.1f move %d %,d nodes, setChance(1, 0) %.1f move %d %,d nodes%n",
+                                pi, depth, a, sampled.getRootBestMove(), sampled.getNodeCount(), b, single.getRootBestMove(), single.getNodeCount());
+                    }
+                }
+            }
+        }
+
+        System.out.printf("%,d positions to depth %d (%,d nodes each way): %,d mismatches%n", positions, maxDepth, nodes, mismatches);
+        if (mismatches > 0) System.exit(1);
+    }
+}
@@ -0,0 +1,144 @@
+package sungka.test;
+
+import sungka.ai.AIPlayer;
+import sungka.ai.EasyAI;
+import sungka.ai.HardAI;
+import sungka.ai.MediumAI;
+import sungka.ai.SearchEngine;
+import sungka.core.BoardState;
+import sungka.core.GameRandom;
+import sungka.core.SungkaGame;
+import sungka.model.Pit;
+import sungka.model.Player;
+import sungka.powerups.PowerUp;
+import sungka.powerups.PowerUpManager;
+
+import java.lang.management.ManagementFactory;
+
+ // Micro-benchmarks for the engine hot paths on a fixed corpus of positions.
+ // Each benchmark is warmed up, then run in timed batches on one thread;
+ // the report gives throughput, time per operation and bytes allocated per
+ // operation (from the JVM's per-thread allocation counter).
+ // Benchmarks that mutate a position first restore it with copyInto, whose own
+ // cost is reported as "copyInto" so it can be subtracted.
+ // Usage: EngineBenchmark [msPerBenchmark] [name filter]
+public class EngineBenchmark {
+    private static final int CORPUS = 64;
+    // upper bound on operations between clock reads (slow operations use smaller batches)
+    private static final int BATCH = 256;
+
+    // operation under test; `i` selects the corpus position
+    interface Op { long run(int i); }
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    // results are folded in here so the JIT cannot drop the work
+    static volatile long sink;
+
+    private static long measureMs = 1000;
+    private static String filter = "";
+
+    public static void main(String[] args) {
+        if (args.length > 0) measureMs = Long.parseLong(args[0]);
+        if (args.length > 1) filter = args[1];
+        SungkaGame[] corpus = new SungkaGame[CORPUS];
+        BoardState[] states = LazySmpScaling.corpus(CORPUS, 42L);
+        for (int k = 0; k < CORPUS; k++) {
+            corpus[k] = new SungkaGame(k);
+            states[k].applyTo(corpus[k]);
+        }
+        SungkaGame scratch = new SungkaGame(1L);
+        PowerUpManager pum = new PowerUpManager();
+        GameRandom rnd = new GameRandom(1L);
+
+        System.out.printf("%-24s %14s %12s %12s%n", "benchmark", "ops/s", "ns/op", "B/op");
+        bench("copyInto", i -> { corpus[i].copyInto(scratch); return scratch.board[0].getStones(); });
+        bench("copy", i -> corpus[i].copy().board[0].getStones());
+        bench("makeMove", i -> {
+            corpus[i].copyInto(scratch);
+            Player cur = scratch.getCurrent();
+            int pit = firstPlayable(scratch, cur);
+            return pit >= 0 && scratch.makeMove(pit) ? 1 : 0;
+        });
+        bench("previewSowSequence", i -> {
+            SungkaGame g = corpus[i];
+            int pit = firstPlayable(g, g.getCurrent());
+            return pit < 0 ? 0 : g.previewSowSequence(pit).size();
+        });
+        bench("evaluate", i -> (long) SearchEngine.evaluate(corpus[i], corpus[i].getCurrent()));
+        bench("refreshPowerUps", i -> {
+            corpus[i].copyInto(scratch);
+            scratch.refreshPowerUpsForPlayer(scratch.getCurrent(), 3);
+            return scratch.board[8].hasPowerUp() ? 1 : 0;
+        });
+        bench("refillToCap", i -> {
+            corpus[i].copyInto(scratch);
+            Player cur = scratch.getCurrent();
+            for (int p = cur.getStart(); p <= cur.getEnd(); p++) scratch.board[p].clearPowerUp();
+            pum.refillToCap(cur, scratch.board, 3, rnd);
+            return scratch.board[cur.getStart()].hasPowerUp() ? 1 : 0;
+        });
+        for (byte id = 1; id <= PowerUpManager.ID_LETTERS.length(); id++) {
+            PowerUp pu = PowerUpManager.byId(id);
+            bench("apply " + pu.getCode() + " " + pu.getClass().getSimpleName(), i -> {
+                corpus[i].copyInto(scratch);
+                Player cur = scratch.getCurrent();
+                int pit = cur.getStart() + (i % 7);
+                pu.apply(scratch, cur, pit);
+                return scratch.board[pit].getStones();
+            });
+        }
+        chooseMove("chooseMove EasyAI", new EasyAI(), corpus, scratch);
+        chooseMove("chooseMove MediumAI", new MediumAI(), corpus, scratch);
+        HardAI hard = new HardAI();
+        // a node budget keeps the work per call fixed regardless of machine speed
+        hard.setTimeBudgetMillis(0);
+        hard.setNodeBudget(20_000);
+        hard.setOpeningBook(null);
+        chooseMove("chooseMove HardAI", hard, corpus, scratch);
+    }
+
+    private static void chooseMove(String name, AIPlayer ai, SungkaGame[] corpus, SungkaGame scratch) {
+        bench(name, i -> {
+            corpus[i].copyInto(scratch);
+            return ai.chooseMove(scratch, scratch.getCurrent());
+        });
+    }
+
+    private static int firstPlayable(SungkaGame g, Player p) {
+        for (int i = p.getStart(); i <= p.getEnd(); i++) {
+            Pit pit = g.board[i];
+            if (pit.getStones() > 0 && !pit.hasPowerUp()) return i;
+        }
+        return -1;
+    }
+
+    // Warm up for a fifth of the budget, then time batches until the budget is spent.
+    static void bench(String name, Op op) {
+        if (!name.contains(filter)) return;
+        long warm0 = System.nanoTime();
+        long warmEnd = warm0 + measureMs * 200_000L;
+        long acc = 0, warmOps = 0;
+        int i = 0;
+        while (System.nanoTime() - warmEnd < 0) {
+            acc += op.run(i);
+            i = (i + 1) % CORPUS;
+            warmOps++;
+        }
+        // about 1 ms of work per batch
+        int batch = (int) Math.max(1, Math.min(BATCH, warmOps * 1_000_000L / Math.max(1, System.nanoTime() - warm0)));
+        long ops = 0;
+        long bytes0 = THREADS.getCurrentThreadAllocatedBytes();
+        long t0 = System.nanoTime();
+        long end = t0 + measureMs * 1_000_000L;
+        long t;
+        do {
+            for (int k = 0; k < batch; k++) { acc += op.run(i); i = (i + 1) % CORPUS; }
+            ops += batch;
+        } while ((t = System.nanoTime()) - end < 0);
+        long bytes = THREADS.getCurrentThreadAllocatedBytes() - bytes0;
+        sink = acc;
+        double secs = (t - t0) / 1e9;
+        System.out.printf("%-24s %14.0f %12.1f %12.1f%n", name, ops / secs, (t - t0) / (double) ops, bytes / (double) ops);
+    }
+}
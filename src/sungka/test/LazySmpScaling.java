@@ -0,0 +1,74 @@
+package sungka.test;
+
+import sungka.ai.LazySmpAI;
+import sungka.core.BoardState;
+import sungka.core.GameRandom;
+import sungka.core.SungkaGame;
+
+import java.util.Arrays;
+
+// Reports how LazySmpAI scales from 1 to N threads on a fixed set of positions.
+// Usage: LazySmpScaling [maxThreads] [msPerMove] [positions]
+public class LazySmpScaling {
+    public static void main(String[] args) {
+        int maxThreads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        long ms = args.length > 1 ? Long.parseLong(args[1]) : 500;
+        int count = args.length > 2 ? Integer.parseInt(args[2]) : 8;
+        BoardState[] positions = corpus(count, 42L);
+
+        // warm up the JIT so the 1-thread baseline is not penalised
+        run(1, ms, positions);
+
+        System.out.println("threads  nodes/s      speedup  avg depth");
+        double base = 0;
+        for (int t = 1; t <= maxThreads; t++) {
+            double[] r = run(t, ms, positions);
+            if (t == 1) base = r[0];
+            System.out.printf("%7d  %11.0f  %7.2f  %9.2f%n", t, r[0], r[0] / base, r[1]);
+        }
+    }
+
+    // Search every position once; returns {nodes per second, average completed depth}.
+    static double[] run(int threads, long ms, BoardState[] positions) {
+        LazySmpAI ai = new LazySmpAI(threads, 64);
+        ai.setTimeBudgetMillis(ms);
+        long nodes = 0, nanos = 0;
+        int depthSum = 0;
+        for (BoardState pos : positions) {
+            SungkaGame g = new SungkaGame();
+            pos.applyTo(g);
+            long t0 = System.nanoTime();
+            ai.chooseMove(g, g.getCurrent());
+            nanos += System.nanoTime() - t0;
+            nodes += ai.getLastNodeCount();
+            depthSum += ai.getLastDepth();
+        }
+        ai.shutdown();
+        return new double[] { nodes / (nanos / 1e9), depthSum / (double) positions.length };
+    }
+
+    // Deterministic middle-game positions: random plies from the start position.
+    static BoardState[] corpus(int count, long seed) {
+        GameRandom rnd = new GameRandom(seed);
+        BoardState[] out = new BoardState[count];
+        for (int k = 0; k < count; k++) {
+            BoardState s = BoardState.of(new SungkaGame());
+            // drop the unseeded initial power-ups; seeded refills add new ones
+            Arrays.fill(s.powerUps, (byte) 0);
+            s.setRandom(rnd);
+            int plies = 4 + rnd.nextInt(20);
+            for (int p = 0; p < plies && s.winner() < 0; p++) {
+                int start = BoardState.startOf(s.current);
+                int[] legal = new int[7];
+                int n = 0;
+                for (int i = start; i < start + 7; i++) if (s.stones[i] > 0 || s.powerUps[i] != 0) legal[n++] = i;
+                if (n == 0) break;
+                int pit = legal[rnd.nextInt(n)];
+                if (s.powerUps[pit] != 0) s.activatePowerUpInPit(pit);
+                else s.makeMove(pit);
+            }
+            out[k] = s;
+        }
+        return out;
+    }
+}
@@ -0,0 +1,146 @@
+package sungka.test;
+
+import sungka.core.GameEvent;
+import sungka.core.GameEventListener;
+import sungka.core.GameRandom;
+import sungka.core.Sowing;
+import sungka.core.SungkaGame;
+import sungka.model.Player;
+
+import java.util.Arrays;
+import java.util.List;
+
+ // Checks the closed-form Sowing against a stone-by-stone reference sow.
+ // Raw boards: random boards, sides, directions, start pits and stone counts
+ // (up to several laps) through Sowing.sow, landing and pitAt.
+ // Games: every sowing move of random games is replayed on a copy of the board
+ // by the reference and compared with makeMove and previewSowSequence; pits a
+ // capture touches are left out, and moves that activate a captured power-up
+ // are only checked for the preview.
+ // Prints the mismatches and exits with status 1 if there are any.
+ // Usage: SowingCheck [cases] [games] [seed]
+public class SowingCheck {
+    // mismatches printed before the rest are only counted
+    private static final int MAX_REPORTS = 10;
+    private static final int MAX_PLIES = 400;
+
+    private static long mismatches;
+
+    public static void main(String[] args) {
+        int cases = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        int games = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 1L;
+        GameRandom rnd = new GameRandom(seed);
+
+        checkBoards(cases, rnd);
+        long moves = checkGames(games, rnd);
+
+        System.out.printf("%,d raw sows, %,d game moves: %,d mismatches%n", cases, moves, mismatches);
+        if (mismatches > 0) System.exit(1);
+    }
+
+    // Reference sow: one stone at a time, skipping the opponent's house.
+    // Adds the stones to `board` and returns the landing pit.
+    static int referenceSow(int[] board, int side, boolean reverse, int start, int n) {
+        int skip = side == 0 ? 7 : 15, pos = start;
+        while (n > 0) {
+            pos = reverse ? (pos + 15) & 15 : (pos + 1) & 15;
+            if (pos == skip) continue;
+            board[pos]++;
+            n--;
+        }
+        return pos;
+    }
+
+    private static void checkBoards(int cases, GameRandom rnd) {
+        int[] board = new int[16], ref = new int[16];
+        for (int t = 0; t < cases; t++) {
+            for (int i = 0; i < 16; i++) board[i] = rnd.nextInt(8);
+            int side = rnd.nextInt(2);
+            boolean reverse = rnd.nextBoolean();
+            int start = (side == 0 ? 8 : 0) + rnd.nextInt(7);
+            int n = 1 + rnd.nextInt(5 * Sowing.LAP);
+            System.arraycopy(board, 0, ref, 0, 16);
+            int expected = referenceSow(ref, side, reverse, start, n);
+
+            int landed = Sowing.sow(board, side, reverse, start, n);
+            String what = String.format("side %d %s start %d n %d", side, reverse ? "reverse" : "forward", start, n);
+            if (landed != expected) report("sow landing", what, expected, landed);
+            if (!Arrays.equals(board, ref)) report("sow board", what, Arrays.toString(ref), Arrays.toString(board));
+            int landing = Sowing.landing(side, reverse, start, n);
+            if (landing != expected) report("landing", what, expected, landing);
+            // pitAt(k) is where the (k+1)-th stone goes
+            int[] walk = new int[16];
+            for (int k = 0; k < n; k++) {
+                int pit = referenceSow(walk, side, reverse, start, k + 1);
+                int at = Sowing.pitAt(side, reverse, start, k);
+                if (at != pit) {
+                    report("pitAt", what + " k " + k, pit, at);
+                    break;
+                }
+            }
+        }
+    }
+
+    // Notes whether a makeMove captured, and whether it activated a captured power-up.
+    private static final class CaptureWatch implements GameEventListener {
+        boolean captured, activated;
+
+        @Override
+        public void onEvent(GameEvent event, int side, int a, int b) {
+            if (event == GameEvent.CAPTURE) captured = true;
+            else if (event == GameEvent.CAPTURED_POWER_UP_ACTIVATED) activated = true;
+        }
+    }
+
+    private static long checkGames(int games, GameRandom rnd) {
+        long moves = 0;
+        int[] ref = new int[16];
+        CaptureWatch watch = new CaptureWatch();
+        for (int gi = 0; gi < games; gi++) {
+            SungkaGame g = new SungkaGame(rnd.nextLong());
+            g.setEventListener(watch);
+            for (int ply = 0; ply < MAX_PLIES && g.checkForWinner() == null; ply++) {
+                Player p = g.getCurrent();
+                int pit = p.getStart() + rnd.nextInt(7);
+                // use some of the power-ups so reverse sowing and captured effects show up
+                if (g.board[pit].hasPowerUp() && rnd.nextInt(4) == 0) {
+                    g.activatePowerUpInPit(pit);
+                    continue;
+                }
+                int n = g.board[pit].getStones();
+                if (n == 0) continue;
+                int side = p.getIndex();
+                boolean reverse = g.isReverseSowing();
+                for (int i = 0; i < 16; i++) ref[i] = g.board[i].getStones();
+                ref[pit] = 0;
+                int landing = referenceSow(ref, side, reverse, pit, n);
+                String what = String.format("game %d ply %d pit %d", gi, ply, pit);
+
+                List<Integer> seq = g.previewSowSequence(pit);
+                int[] walk = new int[16];
+                boolean same = seq.size() == n;
+                for (int k = 0; same && k < n; k++) same = seq.get(k) == referenceSow(walk, side, reverse, pit, k + 1);
+                if (!same) report("preview", what, "reference order", seq);
+
+                watch.captured = watch.activated = false;
+                g.makeMove(pit);
+                moves++;
+                if (watch.activated) continue;
+                int house = p.getHouseIndex();
+                for (int i = 0; i < 16; i++) {
+                    if (watch.captured && (i == landing || i == 14 - landing || i == house)) continue;
+                    if (g.board[i].getStones() != ref[i]) {
+                        report("makeMove", what + " pit " + i, ref[i], g.board[i].getStones());
+                        break;
+                    }
+                }
+            }
+        }
+        return moves;
+    }
+
+    private static void report(String check, String what, Object expected, Object actual) {
+        if (++mismatches <= MAX_REPORTS) System.out.printf("%s mismatch (%s): expected %s, got %s%n", check, what, expected, actual);
+    }
+}
@@ -0,0 +1,194 @@
+package sungka.test;
+
+import sungka.core.BoardState;
+import sungka.core.GameRandom;
+import sungka.core.SungkaGame;
+import sungka.core.Zobrist;
+import sungka.model.Pit;
+import sungka.model.Player;
+
+import java.util.Arrays;
+
+ // Checks that the incrementally kept game state agrees with the state it
+ // stands for. Random games are played move by move (sowing and power-up
+ // activations); after every move the pit key, zobristKey(), side stones and
+ // the non-empty and power-up masks are compared with a rescan of the board.
+ // Each move is also played
+ //  - undoably and unmade again, which must restore the position and all its
+ //    incremental terms, also a few moves deep;
+ //  - on copy() and copyInto(), which must give the same key and terms;
+ //  - on a BoardState taken from the game (with the same random state), which
+ //    must reach the same position after the same random draws; applied back
+ //    to a game it must give the same key.
+ // Games cycle through three setups: all power-ups, power-ups disabled (refills
+ // must then draw nothing), and all power-ups with a protected pit placed
+ // whenever neither side has one (both refills must skip it alike).
+ // Prints the mismatches and exits with status 1 if there are any.
+ // Usage: StateParityCheck [games] [seed]
+public class StateParityCheck {
+    // mismatches printed before the rest are only counted
+    private static final int MAX_REPORTS = 10;
+    private static final int MAX_PLIES = 300;
+    // moves made undoably (and then unmade) from each position
+    private static final int UNDO_DEPTH = 3;
+    // game setups, used in turn
+    private static final String[] SETUPS = { "power-ups", "no power-ups", "protected pit" };
+    private static final int NO_POWER_UPS = 1, PROTECTED = 2;
+
+    private static long mismatches;
+    private static String where;
+
+    public static void main(String[] args) {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 1L;
+        GameRandom rnd = new GameRandom(seed);
+        SungkaGame scratch = new SungkaGame(0L), applied = new SungkaGame(0L);
+        long moves = 0;
+
+        for (int gi = 0; gi < games; gi++) {
+            int setup = gi % SETUPS.length;
+            SungkaGame g = setup == NO_POWER_UPS ? new SungkaGame(rnd.nextLong(), 0, SungkaGame.WIN_THRESHOLD) : new SungkaGame(rnd.nextLong());
+            where = "game " + gi + " (" + SETUPS[setup] + ") start";
+            checkTerms(g);
+            for (int ply = 0; ply < MAX_PLIES && g.checkForWinner() == null; ply++) {
+                where = "game " + gi + " (" + SETUPS[setup] + ") ply " + ply;
+                if (setup == PROTECTED && g.getProtectedPitIndex(g.playerA) < 0 && g.getProtectedPitIndex(g.playerB) < 0) {
+                    Player p = g.playerOf(rnd.nextInt(2));
+                    g.setProtectedPit(p, p.getStart() + rnd.nextInt(7), 1 + rnd.nextInt(3));
+                }
+                checkUndo(g, rnd);
+
+                int move = pick(g, rnd);
+                BoardState s = BoardState.of(g);
+                long random = rnd.nextLong();
+                GameRandom stateRandom = new GameRandom(random);
+                s.setRandom(stateRandom);
+                g.setRandomState(random);
+                play(g, move);
+                play(s, move);
+                moves++;
+
+                checkTerms(g);
+                compare("BoardState.makeMove", BoardState.of(g), s);
+                if (stateRandom.getState() != g.getRandomState()) report("random draws", g.getRandomState(), stateRandom.getState());
+                if (s.winner() != sideOf(g, g.checkForWinner())) report("winner", s.winner(), sideOf(g, g.checkForWinner()));
+                s.applyTo(applied);
+                checkTerms(applied);
+                if (applied.zobristKey() != g.zobristKey()) report("applyTo key", g.zobristKey(), applied.zobristKey());
+
+                SungkaGame copy = g.copy();
+                checkTerms(copy);
+                compareTerms("copy", g, copy);
+                g.copyInto(scratch);
+                checkTerms(scratch);
+                compareTerms("copyInto", g, scratch);
+            }
+        }
+
+        System.out.printf("%,d games, %,d moves: %,d mismatches%n", games, moves, mismatches);
+        if (mismatches > 0) System.exit(1);
+    }
+
+    // A random move for the side to move: a pit index, with PLY_ACTIVATION for
+    // a power-up activation. Empty pits are allowed (the move is rejected).
+    private static int pick(SungkaGame g, GameRandom rnd) {
+        int pit = g.getCurrent().getStart() + rnd.nextInt(7);
+        if (g.board[pit].hasPowerUp() && rnd.nextInt(3) == 0) return pit | SungkaGame.PLY_ACTIVATION;
+        return pit;
+    }
+
+    private static boolean play(SungkaGame g, int move) {
+        int pit = move & ~SungkaGame.PLY_ACTIVATION;
+        return (move & SungkaGame.PLY_ACTIVATION) != 0 ? g.activatePowerUpInPit(pit) : g.makeMove(pit);
+    }
+
+    private static boolean play(BoardState s, int move) {
+        int pit = move & ~SungkaGame.PLY_ACTIVATION;
+        return (move & SungkaGame.PLY_ACTIVATION) != 0 ? s.activatePowerUpInPit(pit) : s.makeMove(pit);
+    }
+
+    private static boolean playUndoable(SungkaGame g, int move) {
+        int pit = move & ~SungkaGame.PLY_ACTIVATION;
+        return (move & SungkaGame.PLY_ACTIVATION) != 0 ? g.activatePowerUpUndoable(pit) : g.makeMoveUndoable(pit);
+    }
+
+    // Play up to UNDO_DEPTH random moves undoably, then unmake them one by one;
+    // every position on the way back must match the one recorded going down.
+    private static void checkUndo(SungkaGame g, GameRandom rnd) {
+        long random = g.getRandomState();
+        BoardState[] states = new BoardState[UNDO_DEPTH];
+        long[] keys = new long[UNDO_DEPTH];
+        int depth = 0;
+        while (depth < UNDO_DEPTH && g.checkForWinner() == null) {
+            states[depth] = BoardState.of(g);
+            keys[depth] = g.zobristKey();
+            playUndoable(g, pick(g, rnd));
+            checkTerms(g);
+            depth++;
+        }
+        if (g.getUndoDepth() != depth) report("undo depth", depth, g.getUndoDepth());
+        while (depth > 0) {
+            g.unmakeMove();
+            depth--;
+            checkTerms(g);
+            compare("unmakeMove", states[depth], BoardState.of(g));
+            if (g.zobristKey() != keys[depth]) report("unmakeMove key", keys[depth], g.zobristKey());
+        }
+        // refill draws are not rewound
+        g.setRandomState(random);
+    }
+
+    // Compare the incremental terms of `g` with a rescan of its board.
+    private static void checkTerms(SungkaGame g) {
+        long pitKey = 0L;
+        int nonEmpty = 0, powerUps = 0;
+        int[] side = new int[2];
+        for (int i = 0; i < 16; i++) {
+            Pit p = g.board[i];
+            pitKey ^= Zobrist.stones(i, p.getStones()) ^ Zobrist.powerUp(i, p.getPowerUpId());
+            if (p.getStones() != 0) nonEmpty |= 1 << i;
+            if (p.hasPowerUp()) powerUps |= 1 << i;
+            if ((i & 7) != 7) side[i < 7 ? 1 : 0] += p.getStones();
+        }
+        Player a = g.playerA, b = g.playerB;
+        long key = pitKey ^ Zobrist.state(g.getCurrent().getIndex(), g.isDoubleCapture(), g.isBonusTurn(),
+                g.isReverseSowing(), g.isSkipOpponent(),
+                g.getProtectedPitIndex(a), g.getProtectedPitTurns(a), g.getPowerUpsUsedThisTurn(a),
+                g.getProtectedPitIndex(b), g.getProtectedPitTurns(b), g.getPowerUpsUsedThisTurn(b));
+        if (g.zobristKey() != key) report("zobristKey", key, g.zobristKey());
+        if (g.getSideStones(a) != side[0]) report("side stones A", side[0], g.getSideStones(a));
+        if (g.getSideStones(b) != side[1]) report("side stones B", side[1], g.getSideStones(b));
+        if (g.getNonEmptyMask() != nonEmpty) report("non-empty mask", Integer.toBinaryString(nonEmpty), Integer.toBinaryString(g.getNonEmptyMask()));
+        if (g.getPowerUpMask() != powerUps) report("power-up mask", Integer.toBinaryString(powerUps), Integer.toBinaryString(g.getPowerUpMask()));
+        if (g.getPowerUpCount(a) + g.getPowerUpCount(b) != Integer.bitCount(powerUps)) report("power-up count", Integer.bitCount(powerUps), g.getPowerUpCount(a) + g.getPowerUpCount(b));
+    }
+
+    private static void compareTerms(String check, SungkaGame expected, SungkaGame actual) {
+        if (actual.zobristKey() != expected.zobristKey()) report(check + " key", expected.zobristKey(), actual.zobristKey());
+        for (Player p : new Player[] { expected.playerA, expected.playerB }) {
+            Player q = actual.playerOf(p.getIndex());
+            if (actual.getSideStones(q) != expected.getSideStones(p)) report(check + " side stones", expected.getSideStones(p), actual.getSideStones(q));
+        }
+        if (actual.getNonEmptyMask() != expected.getNonEmptyMask()) report(check + " non-empty mask", expected.getNonEmptyMask(), actual.getNonEmptyMask());
+        if (actual.getPowerUpMask() != expected.getPowerUpMask()) report(check + " power-up mask", expected.getPowerUpMask(), actual.getPowerUpMask());
+    }
+
+    // Compare two positions field by field.
+    private static void compare(String check, BoardState expected, BoardState actual) {
+        String e = describe(expected), a = describe(actual);
+        if (!e.equals(a)) report(check, e, a);
+    }
+
+    private static String describe(BoardState s) {
+        return "stones " + Arrays.toString(s.stones) + " power-ups " + Arrays.toString(s.powerUps)
+                + " current " + s.current + " flags " + s.flags
+                + " protected " + Arrays.toString(s.protectedPit) + Arrays.toString(s.protectedTurns)
+                + " used " + Arrays.toString(s.usedThisTurn) + " active " + Arrays.toString(s.activePowerUp);
+    }
+
+    private static int sideOf(SungkaGame g, Player p) { return p == null ? -1 : p.getIndex(); }
+
+    private static void report(String check, Object expected, Object actual) {
+        if (++mismatches <= MAX_REPORTS) System.out.printf("%s mismatch (%s): expected %s, got %s%n", check, where, expected, actual);
+    }
+}
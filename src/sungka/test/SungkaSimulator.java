@@ -1,36 +1,146 @@
 package sungka.test;
 
+import sungka.ai.AIPlayer;
+import sungka.ai.EasyAI;
+import sungka.ai.HardAI;
+import sungka.ai.LazySmpAI;
+import sungka.ai.MctsAI;
+import sungka.ai.MediumAI;
+import sungka.core.GameRandom;
 import sungka.core.SungkaGame;
-import sungka.ai.SimpleAI;
 import sungka.model.Player;
+import sungka.record.GameRecorder;
+import sungka.record.GameRecordWriter;
 
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+ // Headless tournament between two AI players on all cores.
+ // Each worker thread owns its own pair of AI instances and claims game numbers
+ // from a shared counter; game i is played on new SungkaGame(seed of i), with
+ // the engines swapping sides every other game. Engine seeds derive from the
+ // run seed and the worker number. Nothing is printed per move:
+ // results are summed into shared counters and reported every few seconds.
+ // With an archive file, every game's record is appended to it (see GameRecordWriter).
+ // Usage: SungkaSimulator [games] [engine1] [engine2] [threads] [seed] [msPerMove] [archive]
+ // Engines: easy, medium, hard, expert, smp (default: medium medium).
 public class SungkaSimulator {
-    public static void main(String[] args) {
-        SungkaGame game = new SungkaGame();
-        SimpleAI aiA = new SimpleAI(SimpleAI.Difficulty.MEDIUM);
-        SimpleAI aiB = new SimpleAI(SimpleAI.Difficulty.MEDIUM);
+    // games still undecided after this many plies count as unfinished
+    private static final int MAX_PLIES = 1000;
+    private static final long REPORT_EVERY_MS = 5000;
+    private static final List<String> ENGINES = List.of("easy", "medium", "hard", "expert", "smp");
+    // SimpleAI.Difficulty ordinal recorded for each engine (smp is a parallel hard search)
+    private static final int[] CONTROLLERS = { 0, 1, 2, 3, 2 };
+
+    public static void main(String[] args) throws Exception {
+        long games = args.length > 0 ? Long.parseLong(args[0]) : 1000;
+        String first = args.length > 1 ? args[1] : "medium";
+        String second = args.length > 2 ? args[2] : "medium";
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+        long seed = args.length > 4 ? Long.parseLong(args[4]) : System.nanoTime();
+        long ms = args.length > 5 ? Long.parseLong(args[5]) : 50;
+        GameRecordWriter archive = args.length > 6 ? GameRecordWriter.append(Paths.get(args[6])) : null;
+
+        if (!ENGINES.contains(first.toLowerCase()) || !ENGINES.contains(second.toLowerCase())) {
+            throw new IllegalArgumentException("engines must be one of " + ENGINES);
+        }
+        Tally tally = new Tally();
+        AtomicLong next = new AtomicLong();
+        System.out.printf("%,d games: %s vs %s on %d threads, seed %d%n", games, first, second, threads, seed);
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<?>> workers = new ArrayList<>(threads);
+        long t0 = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            // each worker's engines get their own seeds derived from the run seed
+            long workerSeed = GameRandom.mix(seed ^ GameRandom.mix(t + 1));
+            workers.add(pool.submit(() -> {
+                AIPlayer a1 = create(first, ms, workerSeed), a2 = create(second, ms, ~workerSeed);
+                int c1 = controller(first), c2 = controller(second);
+                for (long i; (i = next.getAndIncrement()) < games; ) playGame(i, GameRandom.mix(seed + i), a1, a2, c1, c2, tally, archive);
+                return null;
+            }));
+        }
+        pool.shutdown();
+        while (!pool.awaitTermination(REPORT_EVERY_MS, TimeUnit.MILLISECONDS)) tally.print(first, second, System.nanoTime() - t0);
+        for (Future<?> f : workers) f.get();
+        tally.print(first, second, System.nanoTime() - t0);
+        if (archive != null) {
+            archive.close();
+            System.out.printf("archived %,d games in %,d bytes%n", archive.records(), archive.bytes());
+        }
+    }
 
-        int turn = 0;
-        while (turn < 300) {
+    // Play game `index`; engine 1 is player A on even games and player B on odd ones.
+    // c1 / c2 are the engines' controllers in archived records; archive may be null.
+    static void playGame(long index, long seed, AIPlayer e1, AIPlayer e2, int c1, int c2, Tally tally, GameRecordWriter archive) throws IOException {
+        SungkaGame game = new SungkaGame(seed);
+        boolean e1IsA = (index & 1) == 0;
+        AIPlayer aiA = e1IsA ? e1 : e2, aiB = e1IsA ? e2 : e1;
+        GameRecorder recorder = archive == null ? null : GameRecorder.attach(game, e1IsA ? c1 : c2, e1IsA ? c2 : c1);
+        int plies = 0;
+        Player winner = null;
+        while (plies < MAX_PLIES && (winner = game.checkForWinner()) == null) {
             Player cur = game.getCurrent();
-            int move = (cur == game.playerA) ? aiA.chooseMove(game, cur) : aiB.chooseMove(game, cur);
+            int move = (cur == game.playerA ? aiA : aiB).chooseMove(game, cur);
             if (move < 0) break;
-            if (game.board[move].hasPowerUp()) {
-                game.activatePowerUpInPit(move);
-                System.out.println(cur.getName() + " activated power-up at " + move + ".");
-            } else {
-                game.makeMove(move);
-                System.out.println(cur.getName() + " sowed from " + move + ".");
-            }
-            int a = game.board[game.playerA.getHouseIndex()].getStones();
-            int b = game.board[game.playerB.getHouseIndex()].getStones();
-            System.out.println("Score: A=" + a + " B=" + b);
-            if (game.checkForWinner() != null) {
-                System.out.println("Winner: " + game.checkForWinner().getName());
-                break;
-            }
-            turn++;
+            if (game.board[move].hasPowerUp()) game.activatePowerUpInPit(move);
+            else game.makeMove(move);
+            plies++;
+        }
+        if (winner == null) winner = game.checkForWinner();
+        if (recorder != null) archive.write(recorder.finish());
+        int a = game.board[game.playerA.getHouseIndex()].getStones();
+        int b = game.board[game.playerB.getHouseIndex()].getStones();
+        int margin1 = e1IsA ? a - b : b - a;
+        tally.games.increment();
+        tally.plies.add(plies);
+        tally.margin1.add(margin1);
+        if (winner == null) tally.unfinished.increment();
+        else if ((winner == game.playerA) == e1IsA) tally.wins1.increment();
+        else tally.wins2.increment();
+        if (winner == game.playerA) tally.winsA.increment();
+    }
+
+    private static int controller(String name) { return CONTROLLERS[ENGINES.indexOf(name.toLowerCase())]; }
+
+    private static AIPlayer create(String name, long ms, long seed) {
+        switch (name.toLowerCase()) {
+            case "easy": return new EasyAI(seed);
+            case "medium": return new MediumAI(seed);
+            case "hard": { HardAI ai = new HardAI(seed); ai.setTimeBudgetMillis(ms); return ai; }
+            case "expert": { MctsAI ai = new MctsAI(1, seed); ai.setTimeBudgetMillis(ms); return ai; }
+            case "smp": { LazySmpAI ai = new LazySmpAI(1, 16); ai.setTimeBudgetMillis(ms); return ai; }
+            default: throw new IllegalArgumentException("unknown engine: " + name);
+        }
+    }
+
+    // Running totals, updated concurrently by all workers.
+    static final class Tally {
+        final LongAdder games = new LongAdder();
+        final LongAdder wins1 = new LongAdder();
+        final LongAdder wins2 = new LongAdder();
+        final LongAdder winsA = new LongAdder();
+        final LongAdder unfinished = new LongAdder();
+        final LongAdder plies = new LongAdder();
+        // house difference from engine 1's point of view
+        final LongAdder margin1 = new LongAdder();
+
+        void print(String first, String second, long nanos) {
+            long n = games.sum();
+            if (n == 0) return;
+            double secs = nanos / 1e9;
+            System.out.printf("%,d games | %s %.1f%% %s %.1f%% unfinished %.1f%% | side A %.1f%% | avg plies %.1f | avg margin %+.2f | %,.0f moves/s%n",
+                    n, first, 100.0 * wins1.sum() / n, second, 100.0 * wins2.sum() / n, 100.0 * unfinished.sum() / n,
+                    100.0 * winsA.sum() / n, plies.sum() / (double) n, margin1.sum() / (double) n, plies.sum() / secs);
         }
-        System.out.println("Simulation ended after " + turn + " turns.");
     }
 }